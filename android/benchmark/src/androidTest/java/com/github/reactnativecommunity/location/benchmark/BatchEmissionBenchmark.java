@@ -0,0 +1,74 @@
+package com.github.reactnativecommunity.location.benchmark;
+
+import android.location.Location;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.reactnativecommunity.location.RNLocationRingBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Buffering a batch of fixes and building the event payload for it, in each form the batcher can
+ * emit. Emitting the payload itself needs a React instance, so it is not included.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BatchEmissionBenchmark {
+    private static final int BATCH_SIZE = 50;
+    private static final int SELECTED_FIELDS = RNLocationRingBuffer.FIELD_LATITUDE
+            | RNLocationRingBuffer.FIELD_LONGITUDE
+            | RNLocationRingBuffer.FIELD_ACCURACY
+            | RNLocationRingBuffer.FIELD_TIMESTAMP;
+
+    @Rule
+    public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final RNLocationRingBuffer buffer = new RNLocationRingBuffer(BATCH_SIZE);
+    private Location[] batch;
+
+    @Before
+    public void setUp() {
+        BenchmarkLocations.createContext();
+        batch = BenchmarkLocations.createTrack(BATCH_SIZE);
+    }
+
+    @Test
+    public void allFields() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            fill();
+            buffer.drain(RNLocationRingBuffer.ALL_FIELDS);
+        }
+    }
+
+    @Test
+    public void selectedFields() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            fill();
+            buffer.drain(SELECTED_FIELDS);
+        }
+    }
+
+    @Test
+    public void packed() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            fill();
+            buffer.drainPacked();
+        }
+    }
+
+    // Helpers
+
+    private void fill() {
+        for (int i = 0; i < batch.length; i++) {
+            buffer.write(batch[i]);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.reactnativecommunity.location.benchmark;
+
+import android.content.Context;
+import android.location.Location;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.soloader.SoLoader;
+
+/**
+ * Shared setup for the benchmarks.
+ */
+final class BenchmarkLocations {
+    private BenchmarkLocations() {}
+
+    /**
+     * Creates a React context without a React instance. The bridge maps are native, so this also
+     * loads the React Native libraries.
+     */
+    static ReactApplicationContext createContext() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        SoLoader.init(context, false);
+        return new ReactApplicationContext(context);
+    }
+
+    /**
+     * A walk to the north east at about 1.4 meters per second with a fix every second, wobbling
+     * sideways by a few meters so the simplification has something to keep.
+     */
+    static Location[] createTrack(int count) {
+        Location[] track = new Location[count];
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            Location location = new Location("benchmark");
+            location.setLatitude(51.5 + i * 0.00001);
+            location.setLongitude(-0.12 + i * 0.00001 + (i % 7) * 0.00002);
+            location.setAccuracy(5 + i % 10);
+            location.setAltitude(20 + i % 5);
+            location.setBearing(45);
+            location.setSpeed(1.4f);
+            location.setTime(start + i * 1000L);
+            track[i] = location;
+        }
+        return track;
+    }
+}
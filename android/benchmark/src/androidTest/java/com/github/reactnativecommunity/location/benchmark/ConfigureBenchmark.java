@@ -0,0 +1,76 @@
+package com.github.reactnativecommunity.location.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.github.reactnativecommunity.location.RNKalmanSmoother;
+import com.github.reactnativecommunity.location.RNLocationBatcher;
+import com.github.reactnativecommunity.location.RNLocationFilter;
+import com.github.reactnativecommunity.location.RNLocationMultiplexer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Parsing the options given to `configure` in each pipeline stage, with a typical set of options.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConfigureBenchmark {
+    @Rule
+    public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private RNLocationFilter filter;
+    private RNKalmanSmoother smoother;
+    private RNLocationBatcher batcher;
+    private RNLocationMultiplexer multiplexer;
+    private WritableMap options;
+
+    @Before
+    public void setUp() {
+        ReactApplicationContext context = BenchmarkLocations.createContext();
+        filter = new RNLocationFilter(context);
+        smoother = new RNKalmanSmoother(context);
+        batcher = new RNLocationBatcher(context);
+        multiplexer = new RNLocationMultiplexer(context);
+
+        WritableMap desiredAccuracy = Arguments.createMap();
+        desiredAccuracy.putString("android", "highAccuracy");
+        WritableArray locationFields = Arguments.createArray();
+        locationFields.pushString("latitude");
+        locationFields.pushString("longitude");
+        locationFields.pushString("accuracy");
+        locationFields.pushString("timestamp");
+
+        options = Arguments.createMap();
+        options.putMap("desiredAccuracy", desiredAccuracy);
+        options.putDouble("interval", 1000);
+        options.putDouble("distanceFilter", 5);
+        options.putDouble("maxAccuracy", 50);
+        options.putDouble("maxSpeed", 30);
+        options.putBoolean("smoothing", true);
+        options.putDouble("maxBatchSize", 50);
+        options.putDouble("maxBatchLatencyMs", 5000);
+        options.putArray("locationFields", locationFields);
+
+        // The first call swaps in a larger buffer, which later calls do not
+        batcher.configure(options);
+    }
+
+    @Test
+    public void configure() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            filter.configure(options);
+            smoother.configure(options);
+            batcher.configure(options);
+            multiplexer.configure(options);
+        }
+    }
+}
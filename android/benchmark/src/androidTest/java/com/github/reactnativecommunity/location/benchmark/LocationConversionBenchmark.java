@@ -0,0 +1,39 @@
+package com.github.reactnativecommunity.location.benchmark;
+
+import android.location.Location;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.github.reactnativecommunity.location.Utils;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Converting a single fix to the map which is sent over the bridge.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocationConversionBenchmark {
+    @Rule
+    public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Location location;
+
+    @Before
+    public void setUp() {
+        BenchmarkLocations.createContext();
+        location = BenchmarkLocations.createTrack(1)[0];
+    }
+
+    @Test
+    public void locationToMap() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Utils.locationToMap(location);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.reactnativecommunity.location.benchmark;
+
+import android.location.Location;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+import com.github.reactnativecommunity.location.RNLocationFilter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Running one fix at a time through the filter, as the pipeline does. The filter starts over at
+ * the end of the track, outside of the measured time.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocationFilterBenchmark {
+    private static final int TRACK_SIZE = 1000;
+
+    @Rule
+    public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private RNLocationFilter filter;
+    private Location[] track;
+
+    @Before
+    public void setUp() {
+        ReactApplicationContext context = BenchmarkLocations.createContext();
+        track = BenchmarkLocations.createTrack(TRACK_SIZE);
+
+        WritableMap options = Arguments.createMap();
+        options.putDouble("maxAccuracy", 50);
+        options.putDouble("maxSpeed", 30);
+        filter = new RNLocationFilter(context);
+        filter.configure(options);
+    }
+
+    @Test
+    public void accept() {
+        BenchmarkState state = benchmarkRule.getState();
+        int index = 0;
+        while (state.keepRunning()) {
+            if (index == track.length) {
+                index = restart(state);
+            }
+            filter.accept(track[index++]);
+        }
+    }
+
+    @Test
+    public void acceptAndSimplify() {
+        WritableMap options = Arguments.createMap();
+        options.putDouble("simplificationTolerance", 5);
+        filter.configure(options);
+
+        BenchmarkState state = benchmarkRule.getState();
+        int index = 0;
+        while (state.keepRunning()) {
+            if (index == track.length) {
+                index = restart(state);
+            }
+            Location location = track[index++];
+            if (filter.accept(location)) {
+                filter.simplify(location);
+            }
+        }
+    }
+
+    // Helpers
+
+    private int restart(BenchmarkState state) {
+        state.pauseTiming();
+        filter.reset();
+        state.resumeTiming();
+        return 0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+
+import com.google.android.gms.location.LocationRequest;
+
+/**
+ * Classifies the device as stationary, moving or moving fast from the speed and displacement of
+ * recent fixes, and derives a location request for that state from the configured one. A device
+ * only counts as stationary after it has stayed within a small radius for a while, and any fix
+ * outside that radius puts it straight back into the moving state.
+ */
+public class RNAdaptiveSampler {
+    public static final int STATE_MOVING = 0;
+    public static final int STATE_STATIONARY = 1;
+    public static final int STATE_FAST = 2;
+
+    private static final float STATIONARY_RADIUS = 25;
+    private static final float STATIONARY_SPEED = 0.5f;
+    private static final long STATIONARY_DELAY = 2 * 60 * 1000;
+    private static final long STATIONARY_INTERVAL = 60 * 1000;
+    private static final float FAST_SPEED = 8;
+
+    private final float[] distance = new float[1];
+
+    private int state = STATE_MOVING;
+    private boolean hasAnchor = false;
+    private double anchorLatitude;
+    private double anchorLongitude;
+    private long anchorTime;
+
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Updates the motion state with a new fix. Returns true if the state changed.
+     */
+    public boolean onLocation(Location location) {
+        int previousState = state;
+
+        if (!hasAnchor) {
+            setAnchor(location);
+            return false;
+        }
+
+        Location.distanceBetween(anchorLatitude, anchorLongitude, location.getLatitude(), location.getLongitude(), distance);
+        float speed = location.hasSpeed()
+                ? location.getSpeed()
+                : distance[0] / Math.max(1, (location.getTime() - anchorTime) / 1000f);
+
+        if (speed >= FAST_SPEED) {
+            state = STATE_FAST;
+            setAnchor(location);
+        } else if (distance[0] > Math.max(STATIONARY_RADIUS, location.getAccuracy())) {
+            state = STATE_MOVING;
+            setAnchor(location);
+        } else if (speed < STATIONARY_SPEED && location.getTime() - anchorTime >= STATIONARY_DELAY) {
+            state = STATE_STATIONARY;
+        } else if (state == STATE_FAST) {
+            state = STATE_MOVING;
+        }
+
+        return state != previousState;
+    }
+
+    public void reset() {
+        state = STATE_MOVING;
+        hasAnchor = false;
+    }
+
+    /**
+     * Creates the request to use for the current state, based on the configured request.
+     */
+    public LocationRequest adjust(LocationRequest configured) {
+        if (state == STATE_MOVING) {
+            return configured;
+        }
+
+        LocationRequest request = new LocationRequest();
+        request.setSmallestDisplacement(configured.getSmallestDisplacement());
+        request.setMaxWaitTime(configured.getMaxWaitTime());
+
+        if (state == STATE_STATIONARY) {
+            request.setPriority(configured.getPriority() == LocationRequest.PRIORITY_HIGH_ACCURACY
+                    ? LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY
+                    : configured.getPriority());
+            request.setInterval(Math.max(configured.getInterval(), STATIONARY_INTERVAL));
+            request.setFastestInterval(Math.max(configured.getFastestInterval(), STATIONARY_INTERVAL / 2));
+        } else {
+            request.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
+            request.setInterval(configured.getInterval());
+            request.setFastestInterval(configured.getFastestInterval());
+        }
+
+        return request;
+    }
+
+    // Helpers
+
+    private void setAnchor(Location location) {
+        hasAnchor = true;
+        anchorLatitude = location.getLatitude();
+        anchorLongitude = location.getLongitude();
+        anchorTime = location.getTime();
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.reactnativecommunity.location;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingEvent;
+
+import java.util.List;
+
+/**
+ * Receives the transitions of the geofences registered with the GeofencingClient and hands them to
+ * the geofence engine. Transitions are dropped if there is no engine, which happens when the app
+ * process was started without a React instance.
+ */
+public class RNGeofenceBroadcastReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        RNGeofenceEngine engine = RNGeofenceEngine.getActiveEngine();
+        GeofencingEvent event = GeofencingEvent.fromIntent(intent);
+        if (engine == null || event == null || event.hasError()) {
+            return;
+        }
+
+        List<Geofence> geofences = event.getTriggeringGeofences();
+        if (geofences == null) {
+            return;
+        }
+
+        for (Geofence geofence : geofences) {
+            engine.onPlatformTransition(geofence.getRequestId(), event.getGeofenceTransition(), event.getTriggeringLocation());
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.github.reactnativecommunity.location;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.location.Location;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monitors circular geofences and emits `geofenceEvent` when one is entered, exited or dwelled in.
+ * While Play Services is available, up to the platform limit of fences are registered with the
+ * GeofencingClient so they are monitored even when location updates are stopped. Any other fences
+ * are evaluated in-process against the fixes flowing through the pipeline, using a grid index so
+ * each fix is only compared with the fences near it. The registered fences are saved, so they can
+ * still be matched and removed after the process restarts, and are registered again in case the
+ * device rebooted since.
+ */
+public class RNGeofenceEngine {
+    public static final int TRANSITION_ENTER = 1;
+    public static final int TRANSITION_EXIT = 2;
+    public static final int TRANSITION_DWELL = 4;
+
+    private static final int PLATFORM_LIMIT = 100;
+    private static final double CELL_SIZE = 0.01;
+    private static final int MAX_CELLS_PER_FENCE = 1024;
+    private static final double METERS_PER_DEGREE = 111320;
+    private static final String PREFERENCES_NAME = "rnlocation-geofences";
+
+    private static WeakReference<RNGeofenceEngine> activeEngine = new WeakReference<>(null);
+
+    private final ReactApplicationContext context;
+    private final Map<String, Fence> fences = new HashMap<>();
+    private final Map<Long, List<Fence>> grid = new HashMap<>();
+    private final List<Fence> largeFences = new ArrayList<>();
+    private final List<Fence> insideFences = new ArrayList<>();
+    private final float[] distance = new float[1];
+    private @Nullable PendingIntent platformPendingIntent = null;
+    private int platformCount = 0;
+
+    public RNGeofenceEngine(ReactApplicationContext context) {
+        this.context = context;
+        activeEngine = new WeakReference<>(this);
+        restorePlatformGeofences();
+    }
+
+    @Nullable
+    public static RNGeofenceEngine getActiveEngine() {
+        return activeEngine.get();
+    }
+
+    /**
+     * Stops receiving the platform transitions, once the React instance this engine emits to is gone.
+     */
+    public void stop() {
+        if (activeEngine.get() == this) {
+            activeEngine = new WeakReference<>(null);
+        }
+    }
+
+    public void addGeofences(ReadableArray geofences, final Promise promise) {
+        final List<Fence> added = new ArrayList<>();
+        for (int i = 0; i < geofences.size(); i++) {
+            if (geofences.getType(i) != ReadableType.Map) {
+                promise.reject("401", "geofences must only contain objects");
+                return;
+            }
+            Fence fence = Fence.fromReactMap(geofences.getMap(i));
+            if (fence == null) {
+                promise.reject("401", "Each geofence needs an id, latitude, longitude and radius");
+                return;
+            }
+            added.add(fence);
+        }
+
+        // Replace any fences which are being added again
+        List<String> ids = new ArrayList<>();
+        for (Fence fence : added) {
+            ids.add(fence.id);
+        }
+        removeGeofences(ids);
+
+        synchronized (this) {
+            if (!Utils.hasFusedLocationProvider() || platformCount + added.size() > PLATFORM_LIMIT) {
+                for (Fence fence : added) {
+                    index(fence);
+                }
+                promise.resolve(null);
+                return;
+            }
+            SharedPreferences.Editor editor = getPreferences().edit();
+            for (Fence fence : added) {
+                fence.platform = true;
+                fences.put(fence.id, fence);
+                editor.putString(fence.id, fence.toJson());
+            }
+            editor.apply();
+            platformCount += added.size();
+        }
+
+        addPlatformGeofences(added, promise);
+    }
+
+    public synchronized void removeGeofences(List<String> ids) {
+        List<String> platformIds = new ArrayList<>();
+        for (String id : ids) {
+            Fence fence = fences.remove(id);
+            if (fence == null) {
+                continue;
+            }
+            if (fence.platform) {
+                platformIds.add(id);
+                platformCount--;
+            } else {
+                unindex(fence);
+            }
+        }
+
+        if (!platformIds.isEmpty()) {
+            SharedPreferences.Editor editor = getPreferences().edit();
+            for (String id : platformIds) {
+                editor.remove(id);
+            }
+            editor.apply();
+            LocationServices.getGeofencingClient(context).removeGeofences(platformIds);
+        }
+    }
+
+    /**
+     * Evaluates the in-process fences against a new fix.
+     */
+    public synchronized void onLocation(Location location) {
+        if (fences.size() == platformCount) {
+            return;
+        }
+
+        // Fences we are currently inside can be exited or dwelled in
+        Iterator<Fence> iterator = insideFences.iterator();
+        while (iterator.hasNext()) {
+            Fence fence = iterator.next();
+            if (!fence.contains(location, distance)) {
+                fence.inside = false;
+                iterator.remove();
+                emit(fence, TRANSITION_EXIT, location);
+            } else if (!fence.dwelled && location.getTime() - fence.enteredAt >= fence.loiteringDelay) {
+                fence.dwelled = true;
+                emit(fence, TRANSITION_DWELL, location);
+            }
+        }
+
+        // Nearby fences can be entered
+        List<Fence> candidates = grid.get(cellKey(cellIndex(location.getLatitude()), cellIndex(location.getLongitude())));
+        if (candidates != null) {
+            enterCandidates(candidates, location);
+        }
+        enterCandidates(largeFences, location);
+    }
+
+    /**
+     * Called by the broadcast receiver with a transition reported by the GeofencingClient.
+     */
+    public void onPlatformTransition(String id, int transition, @Nullable Location location) {
+        Fence fence;
+        synchronized (this) {
+            fence = fences.get(id);
+        }
+        if (fence != null && (fence.transitions & transition) != 0) {
+            emit(fence, transition, location);
+        }
+    }
+
+    // Helpers
+
+    private SharedPreferences getPreferences() {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    private synchronized void restorePlatformGeofences() {
+        List<Fence> restored = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : getPreferences().getAll().entrySet()) {
+            Fence fence = entry.getValue() instanceof String ? Fence.fromJson((String) entry.getValue()) : null;
+            if (fence != null) {
+                restored.add(fence);
+            }
+        }
+        if (restored.isEmpty()) {
+            return;
+        }
+
+        if (!Utils.hasFusedLocationProvider()) {
+            // Play Services went away, so the fences can only be monitored in-process
+            getPreferences().edit().clear().apply();
+            for (Fence fence : restored) {
+                index(fence);
+            }
+            return;
+        }
+
+        // Registrations do not survive a reboot, and adding them again replaces any which did
+        for (Fence fence : restored) {
+            fence.platform = true;
+            fences.put(fence.id, fence);
+        }
+        platformCount = restored.size();
+        addPlatformGeofences(restored, new PromiseImpl(null, null));
+    }
+
+    private void addPlatformGeofences(final List<Fence> added, final Promise promise) {
+        List<Geofence> geofences = new ArrayList<>();
+        for (Fence fence : added) {
+            geofences.add(new Geofence.Builder()
+                    .setRequestId(fence.id)
+                    .setCircularRegion(fence.latitude, fence.longitude, (float) fence.radius)
+                    .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                    .setTransitionTypes(fence.transitions)
+                    .setLoiteringDelay((int) Math.min(Integer.MAX_VALUE, fence.loiteringDelay))
+                    .build());
+        }
+        GeofencingRequest request = new GeofencingRequest.Builder()
+                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
+                .addGeofences(geofences)
+                .build();
+
+        try {
+            LocationServices.getGeofencingClient(context)
+                    .addGeofences(request, getPlatformPendingIntent())
+                    .addOnSuccessListener(new OnSuccessListener<Void>() {
+                        @Override
+                        public void onSuccess(Void result) {
+                            promise.resolve(null);
+                        }
+                    })
+                    .addOnFailureListener(new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            fallBackToIndex(added);
+                            promise.resolve(null);
+                        }
+                    });
+        } catch (SecurityException e) {
+            fallBackToIndex(added);
+            promise.resolve(null);
+        }
+    }
+
+    private synchronized void fallBackToIndex(List<Fence> added) {
+        if (context.hasActiveCatalystInstance()) {
+            Utils.emitWarning(context, "Geofences could not be registered with Play Services and will only be monitored while location updates are running", "500");
+        }
+        SharedPreferences.Editor editor = getPreferences().edit();
+        for (Fence fence : added) {
+            if (fences.get(fence.id) == fence && fence.platform) {
+                fence.platform = false;
+                platformCount--;
+                editor.remove(fence.id);
+                index(fence);
+            }
+        }
+        editor.apply();
+    }
+
+    private PendingIntent getPlatformPendingIntent() {
+        if (platformPendingIntent == null) {
+            Intent intent = new Intent(context, RNGeofenceBroadcastReceiver.class);
+            int flag = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                    ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE
+                    : PendingIntent.FLAG_UPDATE_CURRENT;
+            platformPendingIntent = PendingIntent.getBroadcast(context, 0, intent, flag);
+        }
+        return platformPendingIntent;
+    }
+
+    private void enterCandidates(List<Fence> candidates, Location location) {
+        for (int i = 0; i < candidates.size(); i++) {
+            Fence fence = candidates.get(i);
+            if (!fence.inside && fence.contains(location, distance)) {
+                fence.inside = true;
+                fence.dwelled = false;
+                fence.enteredAt = location.getTime();
+                insideFences.add(fence);
+                emit(fence, TRANSITION_ENTER, location);
+            }
+        }
+    }
+
+    private void emit(Fence fence, int transition, @Nullable Location location) {
+        if ((fence.transitions & transition) == 0) {
+            return;
+        }
+
+        WritableMap event = Arguments.createMap();
+        event.putString("id", fence.id);
+        event.putString("transition", transition == TRANSITION_ENTER ? "enter" : transition == TRANSITION_EXIT ? "exit" : "dwell");
+        if (location != null) {
+            event.putMap("location", Utils.locationToMap(location));
+        }
+        if (context.hasActiveCatalystInstance()) {
+            Utils.emitEvent(context, "geofenceEvent", event);
+        }
+    }
+
+    private void index(Fence fence) {
+        fences.put(fence.id, fence);
+
+        int minLatitude = cellIndex(fence.latitude - fence.latitudeSpan());
+        int maxLatitude = cellIndex(fence.latitude + fence.latitudeSpan());
+        int minLongitude = cellIndex(fence.longitude - fence.longitudeSpan());
+        int maxLongitude = cellIndex(fence.longitude + fence.longitudeSpan());
+        if ((long) (maxLatitude - minLatitude + 1) * (maxLongitude - minLongitude + 1) > MAX_CELLS_PER_FENCE) {
+            largeFences.add(fence);
+            return;
+        }
+
+        for (int latitude = minLatitude; latitude <= maxLatitude; latitude++) {
+            for (int longitude = minLongitude; longitude <= maxLongitude; longitude++) {
+                long key = cellKey(latitude, longitude);
+                List<Fence> cell = grid.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<>();
+                    grid.put(key, cell);
+                }
+                cell.add(fence);
+            }
+        }
+    }
+
+    private void unindex(Fence fence) {
+        largeFences.remove(fence);
+        insideFences.remove(fence);
+
+        Iterator<List<Fence>> cells = grid.values().iterator();
+        while (cells.hasNext()) {
+            List<Fence> cell = cells.next();
+            if (cell.remove(fence) && cell.isEmpty()) {
+                cells.remove();
+            }
+        }
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE);
+    }
+
+    private static long cellKey(int latitudeIndex, int longitudeIndex) {
+        return ((long) latitudeIndex << 32) | (longitudeIndex & 0xffffffffL);
+    }
+
+    private static class Fence {
+        private final String id;
+        private final double latitude;
+        private final double longitude;
+        private final double radius;
+        private final int transitions;
+        private final long loiteringDelay;
+
+        private boolean platform = false;
+        private boolean inside = false;
+        private boolean dwelled = false;
+        private long enteredAt = 0;
+
+        private Fence(String id, double latitude, double longitude, double radius, int transitions, long loiteringDelay) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radius = radius;
+            this.transitions = transitions;
+            this.loiteringDelay = loiteringDelay;
+        }
+
+        private boolean contains(Location location, float[] distance) {
+            Location.distanceBetween(latitude, longitude, location.getLatitude(), location.getLongitude(), distance);
+            return distance[0] <= radius;
+        }
+
+        private double latitudeSpan() {
+            return radius / METERS_PER_DEGREE;
+        }
+
+        private double longitudeSpan() {
+            return radius / (METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+        }
+
+        private String toJson() {
+            try {
+                JSONObject json = new JSONObject();
+                json.put("id", id);
+                json.put("latitude", latitude);
+                json.put("longitude", longitude);
+                json.put("radius", radius);
+                json.put("transitions", transitions);
+                json.put("loiteringDelay", loiteringDelay);
+                return json.toString();
+            } catch (JSONException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Nullable
+        private static Fence fromJson(String string) {
+            try {
+                JSONObject json = new JSONObject(string);
+                return new Fence(
+                        json.getString("id"),
+                        json.getDouble("latitude"),
+                        json.getDouble("longitude"),
+                        json.getDouble("radius"),
+                        json.getInt("transitions"),
+                        json.getLong("loiteringDelay")
+                );
+            } catch (JSONException e) {
+                return null;
+            }
+        }
+
+        @Nullable
+        private static Fence fromReactMap(ReadableMap map) {
+            if (!map.hasKey("id") || map.getType("id") != ReadableType.String
+                    || !map.hasKey("latitude") || map.getType("latitude") != ReadableType.Number
+                    || !map.hasKey("longitude") || map.getType("longitude") != ReadableType.Number
+                    || !map.hasKey("radius") || map.getType("radius") != ReadableType.Number) {
+                return null;
+            }
+
+            int transitions = TRANSITION_ENTER | TRANSITION_EXIT;
+            if (map.hasKey("transitions") && map.getType("transitions") == ReadableType.Array) {
+                transitions = 0;
+                ReadableArray array = map.getArray("transitions");
+                for (int i = 0; i < array.size(); i++) {
+                    String transition = array.getType(i) == ReadableType.String ? array.getString(i) : "";
+                    if (transition.equals("enter")) {
+                        transitions |= TRANSITION_ENTER;
+                    } else if (transition.equals("exit")) {
+                        transitions |= TRANSITION_EXIT;
+                    } else if (transition.equals("dwell")) {
+                        transitions |= TRANSITION_DWELL;
+                    }
+                }
+            }
+
+            long loiteringDelay = 0;
+            if (map.hasKey("loiteringDelay") && map.getType("loiteringDelay") == ReadableType.Number) {
+                loiteringDelay = (long) map.getDouble("loiteringDelay");
+            }
+
+            return new Fence(
+                    map.getString("id"),
+                    map.getDouble("latitude"),
+                    map.getDouble("longitude"),
+                    map.getDouble("radius"),
+                    transitions,
+                    loiteringDelay
+            );
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.reactnativecommunity.location;
+
+import android.content.Context;
+import android.hardware.GeomagneticField;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.location.Location;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Computes the device heading from the rotation vector sensor and emits `headingUpdated`. The sensor
+ * is registered with a report latency so the hardware can batch its events, and a heading is only
+ * emitted when it has changed by more than `headingFilter` degrees and the last one was emitted
+ * long enough ago, so the sensor rate never reaches the bridge. Headings are corrected to true north
+ * with the declination at the last known location, when there is one.
+ */
+public class RNHeadingSensor implements SensorEventListener {
+    private static final int SAMPLING_PERIOD_US = 50 * 1000;
+    private static final int MAX_REPORT_LATENCY_US = 200 * 1000;
+    private static final long MIN_EMIT_INTERVAL_NS = 100L * 1000 * 1000;
+
+    private final ReactApplicationContext context;
+    private final RNLocationPipeline pipeline;
+    private final float[] rotationMatrix = new float[9];
+    private final float[] orientation = new float[3];
+
+    private double headingFilter = 0;
+    private double orientationOffset = 0;
+
+    private boolean updating = false;
+    private boolean reliable = true;
+    private double lastHeading = -1;
+    private long lastEmittedAt = 0;
+    private @Nullable Location declinationLocation = null;
+    private float declination = 0;
+
+    public RNHeadingSensor(ReactApplicationContext context, RNLocationPipeline pipeline) {
+        this.context = context;
+        this.pipeline = pipeline;
+    }
+
+    public synchronized void configure(ReadableMap options) {
+        // Heading filter
+        if (options.hasKey("headingFilter")) {
+            if (options.getType("headingFilter") == ReadableType.Number) {
+                headingFilter = Math.max(0, options.getDouble("headingFilter"));
+            } else {
+                Utils.emitWarning(context, "headingFilter must be a number", "401");
+            }
+        }
+
+        // Heading orientation
+        if (options.hasKey("headingOrientation")) {
+            String headingOrientation = options.getType("headingOrientation") == ReadableType.String ? options.getString("headingOrientation") : "";
+            switch (headingOrientation) {
+                case "portrait":
+                    orientationOffset = 0;
+                    break;
+                case "landscapeLeft":
+                    orientationOffset = 90;
+                    break;
+                case "portraitUpsideDown":
+                    orientationOffset = 180;
+                    break;
+                case "landscapeRight":
+                    orientationOffset = 270;
+                    break;
+                default:
+                    Utils.emitWarning(context, "headingOrientation was passed an unknown value", "401");
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (updating) {
+            return;
+        }
+
+        SensorManager sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        if (sensorManager == null) {
+            Utils.emitWarning(context, "No sensor manager is available.", "502");
+            return;
+        }
+
+        Sensor sensor = sensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
+        if (sensor == null) {
+            sensor = sensorManager.getDefaultSensor(Sensor.TYPE_GEOMAGNETIC_ROTATION_VECTOR);
+        }
+        if (sensor == null) {
+            Utils.emitWarning(context, "There is no rotation vector sensor available to compute the heading.", "503");
+            return;
+        }
+
+        lastHeading = -1;
+        lastEmittedAt = 0;
+        reliable = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            updating = sensorManager.registerListener(this, sensor, SAMPLING_PERIOD_US, MAX_REPORT_LATENCY_US, RNLocationThread.getHandler());
+        } else {
+            updating = sensorManager.registerListener(this, sensor, SAMPLING_PERIOD_US, RNLocationThread.getHandler());
+        }
+    }
+
+    public synchronized void stop() {
+        if (!updating) {
+            return;
+        }
+
+        SensorManager sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        if (sensorManager != null) {
+            sensorManager.unregisterListener(this);
+        }
+        updating = false;
+    }
+
+    @Override
+    public synchronized void onSensorChanged(SensorEvent event) {
+        if (!updating || !reliable || event.timestamp - lastEmittedAt < MIN_EMIT_INTERVAL_NS) {
+            return;
+        }
+
+        SensorManager.getRotationMatrixFromVector(rotationMatrix, event.values);
+        SensorManager.getOrientation(rotationMatrix, orientation);
+        double heading = normalize(Math.toDegrees(orientation[0]) + getDeclination() + orientationOffset);
+
+        if (lastHeading >= 0 && angleBetween(heading, lastHeading) < Math.max(headingFilter, 0.1)) {
+            return;
+        }
+        lastHeading = heading;
+        lastEmittedAt = event.timestamp;
+
+        WritableMap map = Arguments.createMap();
+        map.putDouble("heading", heading);
+        if (context.hasActiveCatalystInstance()) {
+            Utils.emitEvent(context, "headingUpdated", map);
+        }
+    }
+
+    @Override
+    public synchronized void onAccuracyChanged(Sensor sensor, int accuracy) {
+        // Like on iOS, headings are not reported while the sensor needs calibrating
+        reliable = accuracy != SensorManager.SENSOR_STATUS_UNRELIABLE;
+    }
+
+    // Helpers
+
+    private float getDeclination() {
+        Location location = pipeline.getLastLocation();
+        if (location != null && location != declinationLocation) {
+            declinationLocation = location;
+            declination = new GeomagneticField(
+                    (float) location.getLatitude(),
+                    (float) location.getLongitude(),
+                    (float) location.getAltitude(),
+                    location.getTime()
+            ).getDeclination();
+        }
+        return declination;
+    }
+
+    private static double normalize(double degrees) {
+        double normalized = degrees % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+
+    private static double angleBetween(double a, double b) {
+        double difference = Math.abs(a - b) % 360;
+        return difference > 180 ? 360 - difference : difference;
+    }
+}
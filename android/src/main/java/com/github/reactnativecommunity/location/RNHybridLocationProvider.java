@@ -0,0 +1,192 @@
+package com.github.reactnativecommunity.location;
+
+import android.app.Activity;
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.google.android.gms.location.LocationRequest;
+
+import java.util.List;
+
+/**
+ * Fused location provider which also listens to raw GNSS for a short warm-up window after starting,
+ * because on some devices the fused provider stalls for a long time while GPS already has a fix.
+ * During the warm-up only fixes with an acceptable accuracy are emitted, from whichever source
+ * produces them first. The provider settles on the fused source as soon as it produces an
+ * acceptable fix, or at the end of the warm-up if it produced any fix at all, and otherwise on GNSS
+ * if that did. The other source is then stopped and fixes are no longer filtered by accuracy. The
+ * time to first fix of each source is recorded in the metrics for every start.
+ */
+public class RNHybridLocationProvider extends RNPlayServicesLocationProvider {
+    private static final long WARM_UP = 30 * 1000;
+    private static final float ACCEPTABLE_ACCURACY = 50;
+
+    private static final int SOURCE_NONE = 0;
+    private static final int SOURCE_FUSED = 1;
+    private static final int SOURCE_GNSS = 2;
+
+    private final ReactApplicationContext context;
+    private final RNLocationPipeline pipeline;
+    private final Handler handler = RNLocationThread.getHandler();
+
+    private boolean running = false;
+    private boolean gnssRunning = false;
+    private int source = SOURCE_NONE;
+    private long startedAt = 0;
+    private boolean fusedHasFix = false;
+    private boolean gnssHasFix = false;
+
+    public RNHybridLocationProvider(Activity activity, ReactApplicationContext context, RNLocationPipeline pipeline) {
+        super(activity, context, pipeline);
+        this.context = context;
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public synchronized void startUpdatingLocation() {
+        super.startUpdatingLocation();
+        if (running) {
+            return;
+        }
+
+        running = true;
+        source = SOURCE_NONE;
+        startedAt = SystemClock.elapsedRealtime();
+        fusedHasFix = false;
+        gnssHasFix = false;
+        startGnss(0, 0);
+        handler.postDelayed(endWarmUp, WARM_UP);
+    }
+
+    @Override
+    public synchronized void stopUpdatingLocation() {
+        super.stopUpdatingLocation();
+        running = false;
+        handler.removeCallbacks(endWarmUp);
+        stopGnss();
+    }
+
+    @Override
+    protected synchronized void onFusedLocations(List<Location> locations) {
+        if (!fusedHasFix && !locations.isEmpty()) {
+            fusedHasFix = true;
+            RNLocationMetrics.getInstance().recordFusedTimeToFirstFix(SystemClock.elapsedRealtime() - startedAt);
+        }
+        if (source == SOURCE_FUSED) {
+            super.onFusedLocations(locations);
+            return;
+        }
+        if (source == SOURCE_GNSS) {
+            return;
+        }
+
+        // Until a source is settled on, only acceptable fused fixes are emitted
+        for (int i = 0; i < locations.size(); i++) {
+            Location location = locations.get(i);
+            if (isAcceptable(location)) {
+                settleOnFused();
+                pipeline.onLocation(location);
+            }
+        }
+    }
+
+    // Helpers
+
+    private void onGnssLocation(Location location) {
+        if (!gnssHasFix) {
+            gnssHasFix = true;
+            RNLocationMetrics.getInstance().recordGnssTimeToFirstFix(SystemClock.elapsedRealtime() - startedAt);
+        }
+        if (source == SOURCE_GNSS || (source == SOURCE_NONE && isAcceptable(location))) {
+            pipeline.onLocation(location);
+        }
+    }
+
+    private void settleOnFused() {
+        source = SOURCE_FUSED;
+        handler.removeCallbacks(endWarmUp);
+        stopGnss();
+    }
+
+    private void settleOnGnss() {
+        source = SOURCE_GNSS;
+        super.stopUpdatingLocation();
+
+        // Follow the configured request from now on, rather than the warm-up's fastest rate
+        LocationRequest request = getLocationRequest();
+        stopGnss();
+        startGnss(request.getInterval(), request.getSmallestDisplacement());
+    }
+
+    private void startGnss(long minTime, float minDistance) {
+        LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (locationManager == null || !locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER)) {
+            return;
+        }
+
+        try {
+            locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, minTime, minDistance, gnssListener, RNLocationThread.getLooper());
+            gnssRunning = true;
+            RNLocationMetrics.getInstance().onRegistration();
+        } catch (SecurityException e) {
+            // The fused provider reports the missing permission
+        }
+    }
+
+    private void stopGnss() {
+        if (!gnssRunning) {
+            return;
+        }
+
+        LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (locationManager != null) {
+            locationManager.removeUpdates(gnssListener);
+        }
+        gnssRunning = false;
+    }
+
+    private static boolean isAcceptable(Location location) {
+        return location.hasAccuracy() && location.getAccuracy() <= ACCEPTABLE_ACCURACY;
+    }
+
+    private final Runnable endWarmUp = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (RNHybridLocationProvider.this) {
+                if (!running || source != SOURCE_NONE) {
+                    return;
+                }
+                // Keep GNSS only if it is the only source which produced fixes
+                if (!fusedHasFix && gnssHasFix) {
+                    settleOnGnss();
+                } else {
+                    settleOnFused();
+                }
+            }
+        }
+    };
+
+    private final LocationListener gnssListener = new LocationListener() {
+        @Override
+        public void onLocationChanged(Location location) {
+            synchronized (RNHybridLocationProvider.this) {
+                onGnssLocation(location);
+            }
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {}
+
+        @Override
+        public void onProviderEnabled(String provider) {}
+
+        @Override
+        public void onProviderDisabled(String provider) {}
+    };
+}
@@ -0,0 +1,172 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+/**
+ * Constant velocity Kalman filter which smooths the latitude, longitude and speed of each fix, on
+ * a copy so the received fix stays raw for `getLatestLocation`. The north and east axes are filtered independently in meters around the first fix, with
+ * each fix's accuracy as the measurement noise and `smoothingProcessNoise` as the standard
+ * deviation of the acceleration. The state is kept in primitive fields, so the copy is the only
+ * allocation.
+ */
+public class RNKalmanSmoother {
+    private static final double EARTH_RADIUS = 6371000;
+    private static final double DEFAULT_PROCESS_NOISE = 1.0;
+    private static final double INITIAL_VELOCITY_VARIANCE = 100;
+    private static final double MIN_MEASUREMENT_VARIANCE = 1;
+    private static final long RESET_INTERVAL = 60 * 1000;
+    private static final double RESET_DISTANCE = 10000;
+
+    private final ReactApplicationContext context;
+
+    private boolean enabled = false;
+    private double processNoise = DEFAULT_PROCESS_NOISE;
+
+    private boolean initialized = false;
+    private double originLatitude;
+    private double originLongitude;
+    private double cosOriginLatitude;
+    private long lastTime;
+
+    // Per axis state: position, velocity and the covariance matrix [[p00, p01], [p01, p11]]
+    private double x, vx, xP00, xP01, xP11;
+    private double y, vy, yP00, yP01, yP11;
+
+    public RNKalmanSmoother(ReactApplicationContext context) {
+        this.context = context;
+    }
+
+    public synchronized void configure(ReadableMap options) {
+        // Enabled
+        if (options.hasKey("smoothing")) {
+            if (options.getType("smoothing") == ReadableType.Boolean) {
+                enabled = options.getBoolean("smoothing");
+                initialized = false;
+            } else {
+                Utils.emitWarning(context, "smoothing must be a boolean", "401");
+            }
+        }
+
+        // Process noise
+        if (options.hasKey("smoothingProcessNoise")) {
+            if (options.getType("smoothingProcessNoise") == ReadableType.Number) {
+                processNoise = Math.max(0.01, options.getDouble("smoothingProcessNoise"));
+            } else {
+                Utils.emitWarning(context, "smoothingProcessNoise must be a number", "401");
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the fix with the filtered position and speed, or the fix itself when there is
+     * no estimate to apply. The accuracy and every other field are left as they were received.
+     */
+    public synchronized Location smooth(Location location) {
+        if (!enabled) {
+            return location;
+        }
+
+        double variance = Math.max(MIN_MEASUREMENT_VARIANCE, location.getAccuracy() * location.getAccuracy());
+        double dt = (location.getTime() - lastTime) / 1000.0;
+        if (!initialized || dt <= 0 || dt * 1000 > RESET_INTERVAL) {
+            initialize(location, variance);
+            return location;
+        }
+
+        double measuredX = toX(location.getLongitude());
+        double measuredY = toY(location.getLatitude());
+        if (Math.abs(measuredX) > RESET_DISTANCE || Math.abs(measuredY) > RESET_DISTANCE) {
+            initialize(location, variance);
+            return location;
+        }
+
+        // Predict
+        double q = processNoise * processNoise;
+        double q00 = q * dt * dt * dt * dt / 4;
+        double q01 = q * dt * dt * dt / 2;
+        double q11 = q * dt * dt;
+
+        x += vx * dt;
+        double newXP00 = xP00 + 2 * dt * xP01 + dt * dt * xP11 + q00;
+        double newXP01 = xP01 + dt * xP11 + q01;
+        xP11 += q11;
+        xP00 = newXP00;
+        xP01 = newXP01;
+
+        y += vy * dt;
+        double newYP00 = yP00 + 2 * dt * yP01 + dt * dt * yP11 + q00;
+        double newYP01 = yP01 + dt * yP11 + q01;
+        yP11 += q11;
+        yP00 = newYP00;
+        yP01 = newYP01;
+
+        // Update
+        double xGain0 = xP00 / (xP00 + variance);
+        double xGain1 = xP01 / (xP00 + variance);
+        double xInnovation = measuredX - x;
+        x += xGain0 * xInnovation;
+        vx += xGain1 * xInnovation;
+        xP11 -= xGain1 * xP01;
+        xP01 -= xGain0 * xP01;
+        xP00 -= xGain0 * xP00;
+
+        double yGain0 = yP00 / (yP00 + variance);
+        double yGain1 = yP01 / (yP00 + variance);
+        double yInnovation = measuredY - y;
+        y += yGain0 * yInnovation;
+        vy += yGain1 * yInnovation;
+        yP11 -= yGain1 * yP01;
+        yP01 -= yGain0 * yP01;
+        yP00 -= yGain0 * yP00;
+
+        lastTime = location.getTime();
+
+        Location smoothed = new Location(location);
+        smoothed.setLatitude(originLatitude + Math.toDegrees(y / EARTH_RADIUS));
+        smoothed.setLongitude(originLongitude + Math.toDegrees(x / (EARTH_RADIUS * cosOriginLatitude)));
+        smoothed.setSpeed((float) Math.sqrt(vx * vx + vy * vy));
+        return smoothed;
+    }
+
+    public synchronized void reset() {
+        initialized = false;
+    }
+
+    // Helpers
+
+    private void initialize(Location location, double variance) {
+        originLatitude = location.getLatitude();
+        originLongitude = location.getLongitude();
+        cosOriginLatitude = Math.max(0.01, Math.cos(Math.toRadians(originLatitude)));
+        lastTime = location.getTime();
+
+        double speed = location.hasSpeed() ? location.getSpeed() : 0;
+        double bearing = location.hasBearing() ? Math.toRadians(location.getBearing()) : 0;
+
+        x = 0;
+        vx = speed * Math.sin(bearing);
+        xP00 = variance;
+        xP01 = 0;
+        xP11 = INITIAL_VELOCITY_VARIANCE;
+
+        y = 0;
+        vy = speed * Math.cos(bearing);
+        yP00 = variance;
+        yP01 = 0;
+        yP11 = INITIAL_VELOCITY_VARIANCE;
+
+        initialized = true;
+    }
+
+    private double toX(double longitude) {
+        return Math.toRadians(longitude - originLongitude) * EARTH_RADIUS * cosOriginLatitude;
+    }
+
+    private double toY(double latitude) {
+        return Math.toRadians(latitude - originLatitude) * EARTH_RADIUS;
+    }
+}
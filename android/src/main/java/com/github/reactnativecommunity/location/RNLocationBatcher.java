@@ -0,0 +1,257 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+import android.os.Handler;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.List;
+
+/**
+ * Buffers the fixes produced by the location providers and emits them to JS as a single
+ * `locationUpdated` array once either `maxBatchSize` fixes are waiting or the oldest waiting fix
+ * is `maxBatchLatencyMs` old. With the default latency of 0 every provider callback is emitted
+ * straight away, which matches the behaviour from before batching was introduced. With
+ * `packedLocations` the batches are emitted in their packed form as `locationUpdatedPacked` events
+ * instead, which avoids building a map per fix.
+ *
+ * With the `headlessTask` background delivery, batches which become ready while the host is not in
+ * the foreground, or after the React instance has gone away, are handed to a headless JS task
+ * instead of being emitted as events.
+ */
+public class RNLocationBatcher {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final ReactApplicationContext context;
+    private final Handler handler = RNLocationThread.getHandler();
+    private RNLocationRingBuffer buffer = new RNLocationRingBuffer(DEFAULT_CAPACITY);
+
+    private int maxBatchSize = 0;
+    private long maxBatchLatencyMs = 0;
+    private int fieldMask = RNLocationRingBuffer.ALL_FIELDS;
+    private boolean packed = false;
+    private boolean headlessTaskDelivery = false;
+    private boolean hostResumed = false;
+    private boolean flushScheduled = false;
+
+    public RNLocationBatcher(ReactApplicationContext context) {
+        this.context = context;
+    }
+
+    public void configure(ReadableMap options) {
+        // Max batch size
+        if (options.hasKey("maxBatchSize")) {
+            if (options.getType("maxBatchSize") == ReadableType.Number) {
+                int newMaxBatchSize = Math.max(0, (int) options.getDouble("maxBatchSize"));
+                if (newMaxBatchSize > buffer.capacity()) {
+                    // Deliver what we have before swapping in a buffer which can hold a whole batch
+                    flush();
+                    synchronized (this) {
+                        buffer = new RNLocationRingBuffer(newMaxBatchSize);
+                    }
+                }
+                synchronized (this) {
+                    maxBatchSize = newMaxBatchSize;
+                }
+            } else {
+                Utils.emitWarning(context, "maxBatchSize must be a number", "401");
+            }
+        }
+
+        // Max batch latency
+        if (options.hasKey("maxBatchLatencyMs")) {
+            if (options.getType("maxBatchLatencyMs") == ReadableType.Number) {
+                synchronized (this) {
+                    maxBatchLatencyMs = Math.max(0, (long) options.getDouble("maxBatchLatencyMs"));
+                }
+            } else {
+                Utils.emitWarning(context, "maxBatchLatencyMs must be a number", "401");
+            }
+        }
+
+        // Location fields
+        if (options.hasKey("locationFields")) {
+            if (options.getType("locationFields") == ReadableType.Array) {
+                int newFieldMask = RNLocationRingBuffer.fieldMaskFromArray(context, options.getArray("locationFields"));
+                synchronized (this) {
+                    fieldMask = newFieldMask != 0 ? newFieldMask : RNLocationRingBuffer.ALL_FIELDS;
+                }
+            } else if (options.getType("locationFields") == ReadableType.Null) {
+                synchronized (this) {
+                    fieldMask = RNLocationRingBuffer.ALL_FIELDS;
+                }
+            } else {
+                Utils.emitWarning(context, "locationFields must be an array", "401");
+            }
+        }
+
+        // Packed locations
+        if (options.hasKey("packedLocations")) {
+            if (options.getType("packedLocations") == ReadableType.Boolean) {
+                boolean newPacked = options.getBoolean("packedLocations");
+                if (newPacked != packed) {
+                    // Listeners of the previous form get what was buffered for them
+                    flush();
+                    synchronized (this) {
+                        packed = newPacked;
+                    }
+                }
+            } else {
+                Utils.emitWarning(context, "packedLocations must be a boolean", "401");
+            }
+        }
+
+        // Background delivery
+        if (options.hasKey("backgroundDelivery")) {
+            if (options.getType("backgroundDelivery") == ReadableType.String) {
+                String backgroundDelivery = options.getString("backgroundDelivery");
+                switch (backgroundDelivery) {
+                    case "events":
+                        synchronized (this) {
+                            headlessTaskDelivery = false;
+                        }
+                        break;
+                    case "headlessTask":
+                        synchronized (this) {
+                            headlessTaskDelivery = true;
+                        }
+                        break;
+                    default:
+                        Utils.emitWarning(context, "backgroundDelivery was passed an unknown value: " + backgroundDelivery, "401");
+                }
+            } else {
+                Utils.emitWarning(context, "backgroundDelivery must be a string", "401");
+            }
+        }
+
+        // Anything already waiting should respect the new limits
+        onBuffered();
+    }
+
+    public void add(Location location) {
+        synchronized (this) {
+            buffer.write(location);
+        }
+        onBuffered();
+    }
+
+    public void addAll(List<Location> locations) {
+        for (int i = 0; i < locations.size(); i++) {
+            // Never let a large OS batch overwrite fixes which have not been emitted yet
+            if (isFull()) {
+                flush();
+            }
+            synchronized (this) {
+                buffer.write(locations.get(i));
+            }
+        }
+        onBuffered();
+    }
+
+    /**
+     * Emits everything which is currently buffered, regardless of the configured limits.
+     */
+    public void flush() {
+        WritableArray results = null;
+        WritableMap packedResults = null;
+        synchronized (this) {
+            cancelScheduledFlush();
+            if (buffer.isEmpty()) {
+                return;
+            }
+
+            boolean reactAvailable = context.hasActiveCatalystInstance();
+            if (headlessTaskDelivery && (!hostResumed || !reactAvailable)) {
+                // If the task cannot be started the fixes are still available from the journal
+                int count = buffer.size();
+                if (RNLocationHeadlessTaskService.deliver(context, buffer.drainToBundles(fieldMask))) {
+                    RNLocationMetrics.getInstance().onFixesEmitted(count);
+                } else {
+                    RNLocationMetrics.getInstance().onFixesDropped(count);
+                }
+                return;
+            }
+            if (!reactAvailable) {
+                // Nobody is left to receive the events
+                RNLocationMetrics.getInstance().onFixesDropped(buffer.size());
+                buffer.clear();
+                return;
+            }
+
+            RNLocationMetrics.getInstance().onFixesEmitted(buffer.size());
+            long start = System.nanoTime();
+            if (packed) {
+                packedResults = Arguments.createMap();
+                packedResults.putInt("count", buffer.size());
+                packedResults.putString("data", buffer.drainPacked());
+            } else {
+                results = buffer.drain(fieldMask);
+            }
+            RNLocationMetrics.getInstance().recordConversion(start);
+        }
+
+        if (packedResults != null) {
+            Utils.emitEvent(context, "locationUpdatedPacked", packedResults);
+        } else {
+            Utils.emitEvent(context, "locationUpdated", results);
+        }
+    }
+
+    public synchronized void setHostResumed(boolean resumed) {
+        hostResumed = resumed;
+    }
+
+    /**
+     * Drops everything which is currently buffered without emitting it.
+     */
+    public synchronized void clear() {
+        cancelScheduledFlush();
+        buffer.clear();
+    }
+
+    // Helpers
+
+    private synchronized boolean isFull() {
+        return buffer.isFull();
+    }
+
+    private void onBuffered() {
+        boolean flushNow;
+        synchronized (this) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+
+            flushNow = maxBatchLatencyMs == 0
+                    || buffer.isFull()
+                    || (maxBatchSize > 0 && buffer.size() >= maxBatchSize);
+            if (!flushNow && !flushScheduled) {
+                handler.postDelayed(flushRunnable, maxBatchLatencyMs);
+                flushScheduled = true;
+            }
+        }
+
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (flushScheduled) {
+            handler.removeCallbacks(flushRunnable);
+            flushScheduled = false;
+        }
+    }
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+}
@@ -0,0 +1,190 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+/**
+ * Drops fixes which are not worth emitting before they reach the journal and the batcher. In
+ * order, it removes fixes with a duplicate or older timestamp, fixes less accurate than
+ * `maxAccuracy`, and fixes which would need a speed above `maxSpeed` to be reached from the last
+ * accepted fix. When `simplificationTolerance` is set, the remaining fixes are simplified with an
+ * opening window: a fix is held back until a later one shows the track has deviated from a straight
+ * line by more than the tolerance, or the window is full.
+ */
+public class RNLocationFilter {
+    private static final int MAX_SPEED_REJECTIONS = 3;
+    private static final int SIMPLIFICATION_WINDOW = 32;
+    private static final double EARTH_RADIUS = 6371000;
+
+    private final ReactApplicationContext context;
+    private final float[] distance = new float[1];
+    private final Location[] window = new Location[SIMPLIFICATION_WINDOW];
+
+    private double maxAccuracy = 0;
+    private double maxSpeed = 0;
+    private double simplificationTolerance = 0;
+
+    private @Nullable Location lastAccepted = null;
+    private int speedRejections = 0;
+
+    private @Nullable Location anchor = null;
+    private int windowSize = 0;
+
+    public RNLocationFilter(ReactApplicationContext context) {
+        this.context = context;
+    }
+
+    public synchronized void configure(ReadableMap options) {
+        // Max accuracy
+        if (options.hasKey("maxAccuracy")) {
+            if (options.getType("maxAccuracy") == ReadableType.Number) {
+                maxAccuracy = options.getDouble("maxAccuracy");
+            } else {
+                Utils.emitWarning(context, "maxAccuracy must be a number", "401");
+            }
+        }
+
+        // Max speed
+        if (options.hasKey("maxSpeed")) {
+            if (options.getType("maxSpeed") == ReadableType.Number) {
+                maxSpeed = options.getDouble("maxSpeed");
+            } else {
+                Utils.emitWarning(context, "maxSpeed must be a number", "401");
+            }
+        }
+
+        // Simplification tolerance
+        if (options.hasKey("simplificationTolerance")) {
+            if (options.getType("simplificationTolerance") == ReadableType.Number) {
+                simplificationTolerance = options.getDouble("simplificationTolerance");
+            } else {
+                Utils.emitWarning(context, "simplificationTolerance must be a number", "401");
+            }
+        }
+    }
+
+    /**
+     * Runs a fix through the duplicate, accuracy and speed filters. Returns true if it passed.
+     */
+    public synchronized boolean accept(Location location) {
+        if (!passes(location)) {
+            return false;
+        }
+        lastAccepted = location;
+        return true;
+    }
+
+    /**
+     * Runs an accepted fix through the simplification. Returns the fix which should be emitted as a
+     * result, which can be an earlier fix released by the simplification, or null if nothing should
+     * be emitted.
+     */
+    @Nullable
+    public synchronized Location simplify(Location location) {
+        if (simplificationTolerance <= 0) {
+            return location;
+        }
+        return simplifyWindow(location);
+    }
+
+    /**
+     * Releases the fix which is being held back by the simplification, if there is one.
+     */
+    @Nullable
+    public synchronized Location flush() {
+        Location pending = windowSize > 0 ? window[windowSize - 1] : null;
+        clearWindow();
+        anchor = pending != null ? pending : anchor;
+        return pending;
+    }
+
+    public synchronized void reset() {
+        lastAccepted = null;
+        speedRejections = 0;
+        anchor = null;
+        clearWindow();
+    }
+
+    // Helpers
+
+    private boolean passes(Location location) {
+        // Duplicates and fixes arriving out of order
+        if (lastAccepted != null && location.getTime() <= lastAccepted.getTime()) {
+            return false;
+        }
+
+        // Inaccurate fixes
+        if (maxAccuracy > 0 && (!location.hasAccuracy() || location.getAccuracy() > maxAccuracy)) {
+            return false;
+        }
+
+        // Impossible jumps. If several fixes in a row are rejected it was the last accepted fix
+        // which was wrong, so the new one is accepted to recover.
+        if (maxSpeed > 0 && lastAccepted != null) {
+            Location.distanceBetween(lastAccepted.getLatitude(), lastAccepted.getLongitude(), location.getLatitude(), location.getLongitude(), distance);
+            double seconds = (location.getTime() - lastAccepted.getTime()) / 1000.0;
+            if (distance[0] / seconds > maxSpeed && speedRejections < MAX_SPEED_REJECTIONS) {
+                speedRejections++;
+                return false;
+            }
+        }
+        speedRejections = 0;
+
+        return true;
+    }
+
+    @Nullable
+    private Location simplifyWindow(Location location) {
+        if (anchor == null) {
+            anchor = location;
+            return location;
+        }
+
+        // Release the previous fix if the straight line to this one no longer covers the window
+        boolean deviated = false;
+        for (int i = 0; i < windowSize && !deviated; i++) {
+            deviated = distanceToSegment(window[i], anchor, location) > simplificationTolerance;
+        }
+
+        if (deviated || windowSize == SIMPLIFICATION_WINDOW) {
+            Location released = window[windowSize - 1];
+            clearWindow();
+            anchor = released;
+            window[windowSize++] = location;
+            return released;
+        }
+
+        window[windowSize++] = location;
+        return null;
+    }
+
+    private void clearWindow() {
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = null;
+        }
+        windowSize = 0;
+    }
+
+    /**
+     * Distance in meters from a point to the segment between two others, using an equirectangular
+     * projection around the segment start, which is accurate enough over a window of fixes.
+     */
+    private static double distanceToSegment(Location point, Location start, Location end) {
+        double cosLatitude = Math.cos(Math.toRadians(start.getLatitude()));
+        double endX = Math.toRadians(end.getLongitude() - start.getLongitude()) * cosLatitude * EARTH_RADIUS;
+        double endY = Math.toRadians(end.getLatitude() - start.getLatitude()) * EARTH_RADIUS;
+        double pointX = Math.toRadians(point.getLongitude() - start.getLongitude()) * cosLatitude * EARTH_RADIUS;
+        double pointY = Math.toRadians(point.getLatitude() - start.getLatitude()) * EARTH_RADIUS;
+
+        double lengthSquared = endX * endX + endY * endY;
+        double t = lengthSquared > 0 ? Math.max(0, Math.min(1, (pointX * endX + pointY * endY) / lengthSquared)) : 0;
+        double dx = pointX - t * endX;
+        double dy = pointY - t * endY;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -16,20 +16,7 @@ import androidx.core.app.NotificationCompat;
 public class RNLocationForegroundService extends Service {
     private static final String CHANNEL_ID = "RNLocationForegroundService";
     private static final int NOTIFICATION_ID = 1001;
-    private static RNLocationProvider locationProvider = null;
-    public static boolean locationProviderRunning = false;
-
-    public static void setLocationProvider(RNLocationProvider provider) {
-        locationProvider = provider;
-    }
-
-    public static void restartLocationProvider() {
-        if (locationProvider != null && locationProviderRunning) {
-            locationProvider.stopUpdatingLocation();
-            locationProvider.startUpdatingLocation();
-        }
-    }
-
+    private int generation = -1;
 
     @Override
     public void onCreate() {
@@ -40,20 +27,21 @@ public class RNLocationForegroundService extends Service {
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        if (locationProvider != null) {
-            locationProviderRunning = true;
-            locationProvider.startUpdatingLocation();
+        // The updates are started before the service, so there is nothing to do if they are not
+        // running, for example when the system restarts the service in a new process
+        if (!RNLocationUpdatesState.getInstance().isRunningInBackground()) {
+            stopForeground(true);
+            stopSelf();
+            return START_NOT_STICKY;
         }
+        generation = RNLocationUpdatesState.getInstance().getBackgroundGeneration();
 
         return START_STICKY;
     }
 
     @Override
     public void onDestroy() {
-        if (locationProvider != null) {
-            locationProviderRunning = false;
-            locationProvider.stopUpdatingLocation();
-        }
+        RNLocationUpdatesState.getInstance().onServiceStopped(generation);
 
         super.onDestroy();
         stopForeground(true);
@@ -62,10 +50,7 @@ public class RNLocationForegroundService extends Service {
 
     @Override
     public void onTaskRemoved(Intent intent) {
-        if (locationProvider != null) {
-            locationProviderRunning = false;
-            locationProvider.stopUpdatingLocation();
-        }
+        RNLocationUpdatesState.getInstance().onServiceStopped(generation);
 
         super.onTaskRemoved(intent);
         stopForeground(true);
@@ -0,0 +1,60 @@
+package com.github.reactnativecommunity.location;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Parcelable;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.HeadlessJsTaskService;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.jstasks.HeadlessJsTaskConfig;
+
+public class RNLocationHeadlessTaskService extends HeadlessJsTaskService {
+    public static final String TASK_KEY = "RNLocationBackgroundTask";
+    private static final String EXTRA_LOCATIONS = "locations";
+    private static final long TASK_TIMEOUT = 60000;
+
+    /**
+     * Starts the headless task with a batch of locations. Returns false if the service cannot be
+     * started, for example because the app is not allowed to start services from the background.
+     */
+    public static boolean deliver(Context context, Bundle[] locations) {
+        Bundle extras = new Bundle();
+        extras.putParcelableArray(EXTRA_LOCATIONS, locations);
+
+        Intent intent = new Intent(context, RNLocationHeadlessTaskService.class);
+        intent.putExtras(extras);
+
+        try {
+            context.startService(intent);
+        } catch (IllegalStateException | SecurityException e) {
+            return false;
+        }
+
+        // Only held once the service is sure to start, since the service is what releases it
+        HeadlessJsTaskService.acquireWakeLockNow(context);
+        return true;
+    }
+
+    @Override
+    protected @Nullable HeadlessJsTaskConfig getTaskConfig(Intent intent) {
+        Bundle extras = intent.getExtras();
+        Parcelable[] locations = extras != null ? extras.getParcelableArray(EXTRA_LOCATIONS) : null;
+        if (locations == null) {
+            return null;
+        }
+
+        WritableArray results = Arguments.createArray();
+        for (Parcelable location : locations) {
+            results.pushMap(Arguments.fromBundle((Bundle) location));
+        }
+        WritableMap data = Arguments.createMap();
+        data.putArray("locations", results);
+
+        return new HeadlessJsTaskConfig(TASK_KEY, data, TASK_TIMEOUT, true);
+    }
+}
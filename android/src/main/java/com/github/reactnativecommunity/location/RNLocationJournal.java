@@ -0,0 +1,408 @@
+package com.github.reactnativecommunity.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of fixes kept in a memory-mapped file, so fixes recorded while the JS context is
+ * suspended or gone can be read back later. Each segment is a small header followed by fixed size
+ * records. When the active segment is full, or its first record is older than `journalMaxAge`, it
+ * becomes the previous segment and a new one is started, so at most two segments exist on disk.
+ */
+public class RNLocationJournal {
+    private static final int MAGIC = 0x524e4c4a;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int HEADER_COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 64;
+    private static final int FLAG_FROM_MOCK_PROVIDER = 1;
+
+    private static final String ACTIVE_FILE_NAME = "rnlocation-journal.bin";
+    private static final String PREVIOUS_FILE_NAME = "rnlocation-journal.1.bin";
+
+    private static final long DEFAULT_MAX_SIZE = 1024 * 1024;
+    private static final long DEFAULT_MAX_AGE = 24 * 60 * 60 * 1000;
+
+    private final @Nullable ReactApplicationContext context;
+    private final File directory;
+
+    private boolean enabled = false;
+    private long maxSize = DEFAULT_MAX_SIZE;
+    private long maxAge = DEFAULT_MAX_AGE;
+
+    private @Nullable MappedByteBuffer buffer = null;
+    private int capacity = 0;
+    private int count = 0;
+
+    public RNLocationJournal(ReactApplicationContext context) {
+        this(context, context.getFilesDir());
+    }
+
+    private RNLocationJournal(@Nullable ReactApplicationContext context, File directory) {
+        this.context = context;
+        this.directory = directory;
+    }
+
+    /**
+     * Appends fixes which were delivered without a React instance, such as to a process which was
+     * only started to receive them. The active segment is kept at its current size, so records are
+     * not rotated away earlier than the configured `journalMaxSize` would.
+     */
+    public static synchronized void appendAll(Context context, List<Location> locations) {
+        RNLocationJournal journal = new RNLocationJournal(null, context.getFilesDir());
+        journal.maxSize = Math.max(DEFAULT_MAX_SIZE, new File(journal.directory, ACTIVE_FILE_NAME).length());
+        journal.enabled = true;
+        synchronized (journal) {
+            journal.open();
+            for (int i = 0; i < locations.size(); i++) {
+                journal.append(locations.get(i));
+            }
+            journal.close();
+        }
+    }
+
+    /**
+     * Appends fixes delivered through a PendingIntent while this journal is off, since without a
+     * React instance to emit them to they would otherwise be lost. While it is on, the pipeline
+     * records the fixes which pass the filter itself.
+     */
+    public synchronized void appendDelivered(List<Location> locations) {
+        if (!enabled && context != null) {
+            appendAll(context, locations);
+        }
+    }
+
+    public void configure(ReadableMap options) {
+        boolean changed = false;
+
+        // Max size
+        if (options.hasKey("journalMaxSize")) {
+            if (options.getType("journalMaxSize") == ReadableType.Number) {
+                synchronized (this) {
+                    maxSize = Math.max(HEADER_SIZE + RECORD_SIZE, (long) options.getDouble("journalMaxSize"));
+                }
+                changed = true;
+            } else {
+                Utils.emitWarning(context, "journalMaxSize must be a number", "401");
+            }
+        }
+
+        // Max age
+        if (options.hasKey("journalMaxAge")) {
+            if (options.getType("journalMaxAge") == ReadableType.Number) {
+                synchronized (this) {
+                    maxAge = (long) options.getDouble("journalMaxAge");
+                }
+            } else {
+                Utils.emitWarning(context, "journalMaxAge must be a number", "401");
+            }
+        }
+
+        // Enabled
+        if (options.hasKey("journalEnabled")) {
+            if (options.getType("journalEnabled") == ReadableType.Boolean) {
+                synchronized (this) {
+                    enabled = options.getBoolean("journalEnabled");
+                }
+                changed = true;
+            } else {
+                Utils.emitWarning(context, "journalEnabled must be a boolean", "401");
+            }
+        }
+
+        if (changed) {
+            synchronized (this) {
+                // Remap the active segment so it matches the new size
+                close();
+                if (enabled) {
+                    open();
+                }
+            }
+        }
+    }
+
+    public synchronized void append(Location location) {
+        if (!enabled || buffer == null) {
+            return;
+        }
+
+        if (count >= capacity || (count > 0 && location.getTime() - buffer.getLong(HEADER_SIZE) > maxAge)) {
+            rotate();
+            if (buffer == null) {
+                return;
+            }
+        }
+
+        int offset = HEADER_SIZE + count * RECORD_SIZE;
+        buffer.putLong(offset, location.getTime());
+        buffer.putDouble(offset + 8, location.getLatitude());
+        buffer.putDouble(offset + 16, location.getLongitude());
+        buffer.putDouble(offset + 24, location.getAltitude());
+        buffer.putFloat(offset + 32, location.getAccuracy());
+        buffer.putFloat(offset + 40, location.getSpeed());
+        buffer.putFloat(offset + 48, location.getBearing());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            buffer.putFloat(offset + 36, location.getVerticalAccuracyMeters());
+            buffer.putFloat(offset + 44, location.getSpeedAccuracyMetersPerSecond());
+            buffer.putFloat(offset + 52, location.getBearingAccuracyDegrees());
+        } else {
+            buffer.putFloat(offset + 36, 0);
+            buffer.putFloat(offset + 44, 0);
+            buffer.putFloat(offset + 52, 0);
+        }
+        buffer.putInt(offset + 56, location.isFromMockProvider() ? FLAG_FROM_MOCK_PROVIDER : 0);
+
+        // Only count the record once it has been completely written
+        count++;
+        buffer.putLong(HEADER_COUNT_OFFSET, count);
+    }
+
+    /**
+     * Reads up to `limit` records, oldest first, whose timestamp is at or after `fromTimestamp`.
+     */
+    public synchronized WritableArray read(final long fromTimestamp, final int limit) throws IOException {
+        final WritableArray results = Arguments.createArray();
+        visitRecords(new RecordVisitor() {
+            private int read = 0;
+
+            @Override
+            public boolean visit(ByteBuffer segment, int offset) {
+                if (read >= limit) {
+                    return false;
+                }
+                if (segment.getLong(offset) >= fromTimestamp) {
+                    results.pushMap(toMap(segment, offset));
+                    read++;
+                }
+                return true;
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Writes every record whose timestamp is between `fromTimestamp` and `toTimestamp`, oldest
+     * first, and returns how many were written.
+     */
+    public synchronized int export(final long fromTimestamp, final long toTimestamp, final RNTrackWriter writer) throws IOException {
+        final int[] written = { 0 };
+        visitRecords(new RecordVisitor() {
+            @Override
+            public boolean visit(ByteBuffer segment, int offset) throws IOException {
+                long time = segment.getLong(offset);
+                if (time >= fromTimestamp && time <= toTimestamp) {
+                    writer.write(
+                            time,
+                            segment.getDouble(offset + 8),
+                            segment.getDouble(offset + 16),
+                            segment.getFloat(offset + 32),
+                            segment.getDouble(offset + 24),
+                            segment.getFloat(offset + 40),
+                            segment.getFloat(offset + 48)
+                    );
+                    written[0]++;
+                }
+                return true;
+            }
+        });
+        return written[0];
+    }
+
+    /**
+     * Reads every record of a journal segment file, so recorded fixes can be replayed.
+     */
+    public static List<Location> readLocations(File segmentFile) throws IOException {
+        List<Location> locations = new ArrayList<>();
+        RandomAccessFile file = new RandomAccessFile(segmentFile, "r");
+        try {
+            ByteBuffer segment = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            if (segment.limit() < HEADER_SIZE || segment.getInt(0) != MAGIC || segment.getInt(4) != VERSION) {
+                throw new IOException("Not a location journal: " + segmentFile.getName());
+            }
+
+            int segmentCount = (int) Math.min(segment.getLong(HEADER_COUNT_OFFSET), (segment.limit() - HEADER_SIZE) / RECORD_SIZE);
+            for (int i = 0; i < segmentCount; i++) {
+                int offset = HEADER_SIZE + i * RECORD_SIZE;
+                Location location = new Location("replay");
+                location.setTime(segment.getLong(offset));
+                location.setLatitude(segment.getDouble(offset + 8));
+                location.setLongitude(segment.getDouble(offset + 16));
+                location.setAltitude(segment.getDouble(offset + 24));
+                location.setAccuracy(segment.getFloat(offset + 32));
+                location.setSpeed(segment.getFloat(offset + 40));
+                location.setBearing(segment.getFloat(offset + 48));
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    location.setVerticalAccuracyMeters(segment.getFloat(offset + 36));
+                    location.setSpeedAccuracyMetersPerSecond(segment.getFloat(offset + 44));
+                    location.setBearingAccuracyDegrees(segment.getFloat(offset + 52));
+                }
+                locations.add(location);
+            }
+        } finally {
+            file.close();
+        }
+        return locations;
+    }
+
+    /**
+     * Removes every record from the journal.
+     */
+    public synchronized void truncate() {
+        boolean wasOpen = buffer != null;
+        close();
+        new File(directory, PREVIOUS_FILE_NAME).delete();
+        new File(directory, ACTIVE_FILE_NAME).delete();
+        if (wasOpen) {
+            open();
+        }
+    }
+
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        capacity = 0;
+        count = 0;
+    }
+
+    // Helpers
+
+    private void open() {
+        capacity = (int) ((maxSize - HEADER_SIZE) / RECORD_SIZE);
+        File activeFile = new File(directory, ACTIVE_FILE_NAME);
+
+        try {
+            RandomAccessFile file = new RandomAccessFile(activeFile, "rw");
+            try {
+                // Carry on from an existing segment, rotating it if it no longer fits
+                int existingCount = 0;
+                if (file.length() >= HEADER_SIZE && file.readInt() == MAGIC && file.readInt() == VERSION) {
+                    existingCount = (int) file.readLong();
+                }
+                if (existingCount > capacity) {
+                    file.close();
+                    rotateFiles(activeFile);
+                    file = new RandomAccessFile(activeFile, "rw");
+                    existingCount = 0;
+                }
+
+                long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+                file.setLength(size);
+                buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putLong(HEADER_COUNT_OFFSET, existingCount);
+                count = existingCount;
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            buffer = null;
+            if (context != null) {
+                Utils.emitWarning(context, "Unable to open the location journal. Detail: " + e.getLocalizedMessage(), "500");
+            }
+        }
+    }
+
+    private void rotate() {
+        close();
+        rotateFiles(new File(directory, ACTIVE_FILE_NAME));
+        open();
+    }
+
+    private void rotateFiles(File activeFile) {
+        File previousFile = new File(directory, PREVIOUS_FILE_NAME);
+        previousFile.delete();
+        if (!activeFile.renameTo(previousFile)) {
+            activeFile.delete();
+        }
+    }
+
+    private interface RecordVisitor {
+        /**
+         * Called with the offset of each record, returns false to stop visiting.
+         */
+        boolean visit(ByteBuffer segment, int offset) throws IOException;
+    }
+
+    private void visitRecords(RecordVisitor visitor) throws IOException {
+        // Older records live in the previous segment
+        File previousFile = new File(directory, PREVIOUS_FILE_NAME);
+        if (previousFile.exists()) {
+            RandomAccessFile file = new RandomAccessFile(previousFile, "r");
+            try {
+                ByteBuffer previous = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                if (!visitSegment(previous, visitor)) {
+                    return;
+                }
+            } finally {
+                file.close();
+            }
+        }
+
+        if (buffer != null) {
+            visitSegment(buffer, visitor);
+        } else {
+            File activeFile = new File(directory, ACTIVE_FILE_NAME);
+            if (activeFile.exists()) {
+                RandomAccessFile file = new RandomAccessFile(activeFile, "r");
+                try {
+                    ByteBuffer active = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                    visitSegment(active, visitor);
+                } finally {
+                    file.close();
+                }
+            }
+        }
+    }
+
+    private static boolean visitSegment(ByteBuffer segment, RecordVisitor visitor) throws IOException {
+        if (segment.limit() < HEADER_SIZE || segment.getInt(0) != MAGIC || segment.getInt(4) != VERSION) {
+            return true;
+        }
+
+        int segmentCount = (int) Math.min(segment.getLong(HEADER_COUNT_OFFSET), (segment.limit() - HEADER_SIZE) / RECORD_SIZE);
+        for (int i = 0; i < segmentCount; i++) {
+            if (!visitor.visit(segment, HEADER_SIZE + i * RECORD_SIZE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static WritableMap toMap(ByteBuffer segment, int offset) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("latitude", segment.getDouble(offset + 8));
+        map.putDouble("longitude", segment.getDouble(offset + 16));
+        map.putDouble("accuracy", segment.getFloat(offset + 32));
+        map.putDouble("altitude", segment.getDouble(offset + 24));
+        map.putDouble("altitudeAccuracy", segment.getFloat(offset + 36));
+        map.putDouble("course", segment.getFloat(offset + 48));
+        map.putDouble("courseAccuracy", segment.getFloat(offset + 52));
+        map.putDouble("speed", segment.getFloat(offset + 40));
+        map.putDouble("speedAccuracy", segment.getFloat(offset + 44));
+        map.putDouble("timestamp", segment.getLong(offset));
+        map.putBoolean("fromMockProvider", (segment.getInt(offset + 56) & FLAG_FROM_MOCK_PROVIDER) != 0);
+        return map;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms for the native location path, shared by the providers, the
+ * pipeline and `Utils`. Times to first fix and fix ages are in milliseconds, and the processing,
+ * conversion, emit and configure times are in microseconds.
+ */
+public class RNLocationMetrics {
+    private static final RNLocationMetrics instance = new RNLocationMetrics();
+
+    private final RNLatencyHistogram timeToFirstFix = new RNLatencyHistogram();
+    private final RNLatencyHistogram fusedTimeToFirstFix = new RNLatencyHistogram();
+    private final RNLatencyHistogram gnssTimeToFirstFix = new RNLatencyHistogram();
+    private final RNLatencyHistogram fixAge = new RNLatencyHistogram();
+    private final RNLatencyHistogram processingTime = new RNLatencyHistogram();
+    private final RNLatencyHistogram conversionTime = new RNLatencyHistogram();
+    private final RNLatencyHistogram emitTime = new RNLatencyHistogram();
+    private final RNLatencyHistogram configureTime = new RNLatencyHistogram();
+
+    private final AtomicLong fixesReceived = new AtomicLong();
+    private final AtomicLong fixesFiltered = new AtomicLong();
+    private final AtomicLong fixesEmitted = new AtomicLong();
+    private final AtomicLong fixesDropped = new AtomicLong();
+    private final AtomicLong registrations = new AtomicLong();
+
+    // When the updates were last started, or 0 once the first fix since then was emitted
+    private final AtomicLong startedAt = new AtomicLong();
+
+    public static RNLocationMetrics getInstance() {
+        return instance;
+    }
+
+    public void onUpdatesStarted() {
+        startedAt.set(SystemClock.elapsedRealtime());
+    }
+
+    public void onRegistration() {
+        registrations.incrementAndGet();
+    }
+
+    public void onFixReceived(Location location) {
+        fixesReceived.incrementAndGet();
+        fixAge.record(Utils.getLocationAge(location));
+    }
+
+    public void onFixFiltered() {
+        fixesFiltered.incrementAndGet();
+    }
+
+    public void onFixesEmitted(int count) {
+        fixesEmitted.addAndGet(count);
+
+        long started = startedAt.get();
+        if (started != 0 && startedAt.compareAndSet(started, 0)) {
+            timeToFirstFix.record(SystemClock.elapsedRealtime() - started);
+        }
+    }
+
+    public void onFixesDropped(int count) {
+        fixesDropped.addAndGet(count);
+    }
+
+    public void recordFusedTimeToFirstFix(long millis) {
+        fusedTimeToFirstFix.record(millis);
+    }
+
+    public void recordGnssTimeToFirstFix(long millis) {
+        gnssTimeToFirstFix.record(millis);
+    }
+
+    public void recordProcessing(long startNanos) {
+        processingTime.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public void recordConversion(long startNanos) {
+        conversionTime.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public void recordEmit(long startNanos) {
+        emitTime.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public void recordConfigure(long startNanos) {
+        configureTime.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public void reset() {
+        timeToFirstFix.reset();
+        fusedTimeToFirstFix.reset();
+        gnssTimeToFirstFix.reset();
+        fixAge.reset();
+        processingTime.reset();
+        conversionTime.reset();
+        emitTime.reset();
+        configureTime.reset();
+        fixesReceived.set(0);
+        fixesFiltered.set(0);
+        fixesEmitted.set(0);
+        fixesDropped.set(0);
+        registrations.set(0);
+    }
+
+    public WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("fixesReceived", fixesReceived.get());
+        map.putDouble("fixesFiltered", fixesFiltered.get());
+        map.putDouble("fixesEmitted", fixesEmitted.get());
+        map.putDouble("fixesDropped", fixesDropped.get());
+        map.putDouble("registrations", registrations.get());
+        map.putMap("timeToFirstFix", timeToFirstFix.toMap());
+        map.putMap("fusedTimeToFirstFix", fusedTimeToFirstFix.toMap());
+        map.putMap("gnssTimeToFirstFix", gnssTimeToFirstFix.toMap());
+        map.putMap("fixAge", fixAge.toMap());
+        map.putMap("processingTime", processingTime.toMap());
+        map.putMap("conversionTime", conversionTime.toMap());
+        map.putMap("emitTime", emitTime.toMap());
+        map.putMap("configureTime", configureTime.toMap());
+        return map;
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.reactnativecommunity.location;
+
+import android.os.Handler;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+/**
+ * Emits the metrics as a `locationMetrics` event every `metricsInterval` milliseconds. It is off by
+ * default.
+ */
+public class RNLocationMetricsReporter {
+    private final ReactApplicationContext context;
+    private final Handler handler = RNLocationThread.getHandler();
+    private long interval = 0;
+
+    public RNLocationMetricsReporter(ReactApplicationContext context) {
+        this.context = context;
+    }
+
+    public synchronized void configure(ReadableMap options) {
+        if (options.hasKey("metricsInterval")) {
+            if (options.getType("metricsInterval") == ReadableType.Number) {
+                interval = Math.max(0, (long) options.getDouble("metricsInterval"));
+                handler.removeCallbacks(report);
+                if (interval > 0) {
+                    handler.postDelayed(report, interval);
+                }
+            } else {
+                Utils.emitWarning(context, "metricsInterval must be a number", "401");
+            }
+        }
+    }
+
+    public synchronized void stop() {
+        interval = 0;
+        handler.removeCallbacks(report);
+    }
+
+    private final Runnable report = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (RNLocationMetricsReporter.this) {
+                if (interval <= 0) {
+                    return;
+                }
+                if (context.hasActiveCatalystInstance()) {
+                    Utils.emitEvent(context, "locationMetrics", RNLocationMetrics.getInstance().toMap());
+                }
+                handler.postDelayed(this, interval);
+            }
+        }
+    };
+}
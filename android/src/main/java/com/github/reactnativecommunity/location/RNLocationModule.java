@@ -2,32 +2,102 @@ package com.github.reactnativecommunity.location;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.os.Build;
+import android.location.Location;
+
+import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.ActivityEventListener;
 import com.facebook.react.bridge.BaseActivityEventListener;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.PromiseImpl;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.common.LifecycleState;
 import com.facebook.react.module.annotations.ReactModule;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @ReactModule(name = RNLocationModule.NAME)
 public class RNLocationModule extends ReactContextBaseJavaModule {
     public static final String NAME = "RNLocation";
-    private RNLocationProvider locationProvider;
-    private boolean backgroundMode = false;
+    private static final long DEFAULT_LATEST_LOCATION_TIMEOUT = 10000;
+
+    private final RNLocationFilter filter;
+    private final RNKalmanSmoother smoother;
+    private final RNLocationBatcher batcher;
+    private final RNLocationJournal journal;
+    private final RNGeofenceEngine geofences;
+    private final RNLocationMultiplexer multiplexer;
+    private final RNTripStatistics tripStatistics;
+    private final RNReverseGeocoder geocoder;
+    private final RNPowerGovernor powerGovernor;
+    private final RNLocationPipeline pipeline;
+    private final RNSignificantLocationMonitor significantLocationMonitor;
+    private final RNHeadingSensor headingSensor;
+    private final RNLocationMetricsReporter metricsReporter;
+    private final Map<String, RNLocationProviderFactory> providerFactories = new HashMap<>();
+    private final RNLocationUpdatesState updates = RNLocationUpdatesState.getInstance();
+    private volatile RNLocationProvider locationProvider;
+    private volatile @Nullable String customProviderName = null;
+    private volatile boolean backgroundMode = false;
+    private volatile boolean updatingLocation = false;
 
     public RNLocationModule(ReactApplicationContext reactContext) {
+        this(reactContext, Collections.<String, RNLocationProviderFactory>emptyMap());
+    }
+
+    public RNLocationModule(ReactApplicationContext reactContext, Map<String, RNLocationProviderFactory> customProviderFactories) {
         super(reactContext);
+        providerFactories.put(RNReplayLocationProvider.NAME, replayProviderFactory);
+        providerFactories.putAll(customProviderFactories);
+        filter = new RNLocationFilter(reactContext);
+        smoother = new RNKalmanSmoother(reactContext);
+        batcher = new RNLocationBatcher(reactContext);
+        batcher.setHostResumed(reactContext.getLifecycleState() == LifecycleState.RESUMED);
+        journal = new RNLocationJournal(reactContext);
+        geofences = new RNGeofenceEngine(reactContext);
+        multiplexer = new RNLocationMultiplexer(reactContext);
+        tripStatistics = new RNTripStatistics(reactContext);
+        pipeline = new RNLocationPipeline(filter, smoother, batcher, journal, geofences, multiplexer, tripStatistics);
+        significantLocationMonitor = new RNSignificantLocationMonitor(reactContext, pipeline);
+        headingSensor = new RNHeadingSensor(reactContext, pipeline);
+        metricsReporter = new RNLocationMetricsReporter(reactContext);
+        geocoder = new RNReverseGeocoder(reactContext);
+        powerGovernor = new RNPowerGovernor(reactContext, powerGovernorListener);
         reactContext.addActivityEventListener(activityEventListener);
+        reactContext.addLifecycleEventListener(lifecycleEventListener);
     }
 
     @Override
     public void invalidate() {
         ReactApplicationContext context = getReactApplicationContext();
         context.removeActivityEventListener(activityEventListener);
+        context.removeLifecycleEventListener(lifecycleEventListener);
+        batcher.setHostResumed(false);
+        significantLocationMonitor.stop();
+        headingSensor.stop();
+        metricsReporter.stop();
+        tripStatistics.stop();
+        geocoder.shutdown();
+        powerGovernor.stop();
+        geofences.stop();
+        multiplexer.clear();
+
+        // Background updates carry on without the React instance, everything else stops with it
+        if (!updates.isRunningInBackground()) {
+            updates.stop(context);
+        }
     }
 
     @Override
@@ -45,102 +115,392 @@ public class RNLocationModule extends ReactContextBaseJavaModule {
     @ReactMethod
     @SuppressWarnings("unused")
     public void configure(ReadableMap options, final Promise promise) {
-        // Update the location provider if we are given one
+        long start = System.nanoTime();
+
+        // Update the location provider if we are given a different one
         if (options.hasKey("androidProvider")) {
             String providerName = options.getString("androidProvider");
             switch (providerName) {
                 case "auto":
-                    locationProvider = createDefaultLocationProvider();
+                    boolean isDefault = customProviderName == null && (Utils.hasFusedLocationProvider()
+                            ? locationProvider instanceof RNPlayServicesLocationProvider && !(locationProvider instanceof RNHybridLocationProvider)
+                            : locationProvider instanceof RNStandardLocationProvider);
+                    if (!isDefault) {
+                        locationProvider = createDefaultLocationProvider();
+                        customProviderName = null;
+                    }
                     break;
                 case "playServices":
-                    locationProvider = createPlayServicesLocationProvider();
+                    if (customProviderName != null || !(locationProvider instanceof RNPlayServicesLocationProvider) || locationProvider instanceof RNHybridLocationProvider) {
+                        locationProvider = createPlayServicesLocationProvider();
+                        customProviderName = null;
+                    }
+                    break;
+                case "hybrid":
+                    if (customProviderName != null || !(locationProvider instanceof RNHybridLocationProvider)) {
+                        locationProvider = createHybridLocationProvider();
+                        customProviderName = null;
+                    }
                     break;
                 case "standard":
-                    locationProvider = createStandardLocationProvider();
+                    if (customProviderName != null || !(locationProvider instanceof RNStandardLocationProvider)) {
+                        locationProvider = createStandardLocationProvider();
+                        customProviderName = null;
+                    }
                     break;
                 default:
-                    Utils.emitWarning(getReactApplicationContext(), "androidProvider was passed an unknown value: " + providerName, "401");
+                    RNLocationProviderFactory factory = providerFactories.get(providerName);
+                    if (factory == null) {
+                        Utils.emitWarning(getReactApplicationContext(), "androidProvider was passed an unknown value: " + providerName, "401");
+                    } else if (!providerName.equals(customProviderName)) {
+                        locationProvider = factory.createLocationProvider(getCurrentActivity(), getReactApplicationContext(), pipeline);
+                        customProviderName = providerName;
+                    }
             }
-        } else if (locationProvider == null) {
-            // Otherwise ensure we have a provider and create a default if not
-            locationProvider = createDefaultLocationProvider();
         }
+        RNLocationProvider provider = getLocationProvider();
+
+        // Pass the options to the pipeline stages and the location provider
+        filter.configure(options);
+        smoother.configure(options);
+        batcher.configure(options);
+        journal.configure(options);
+        headingSensor.configure(options);
+        significantLocationMonitor.configure(options);
+        multiplexer.configure(options);
+        metricsReporter.configure(options);
+        tripStatistics.configure(options);
+        geocoder.configure(options);
 
-        // Pass the options to the location provider
-        locationProvider.configure(getCurrentActivity(), options, promise);
+        // The step of the power policy which applies overrides the configured parameters
+        boolean hadPowerStep = multiplexer.hasPowerStep();
+        multiplexer.setPowerStep(powerGovernor.configure(options));
 
-        backgroundMode = options.hasKey("allowsBackgroundLocationUpdates") && options.getBoolean("allowsBackgroundLocationUpdates");
+        // Subscriptions with more demanding parameters keep them, so while there are any, or a power
+        // step applies or has just stopped applying, the provider is configured once with everything
+        // merged
+        if (!multiplexer.isEmpty() || hadPowerStep || multiplexer.hasPowerStep()) {
+            provider.configure(getCurrentActivity(), multiplexer.getMergedOptions(updatingLocation), promise);
+        } else {
+            provider.configure(getCurrentActivity(), options, promise);
+        }
 
-        if (backgroundMode) {
-            RNLocationForegroundService.setLocationProvider(locationProvider);
-            RNLocationForegroundService.restartLocationProvider();
+        // Move running updates in or out of the foreground service if the mode changed
+        boolean newBackgroundMode = options.hasKey("allowsBackgroundLocationUpdates") && options.getBoolean("allowsBackgroundLocationUpdates");
+        if (newBackgroundMode != backgroundMode && updates.isRunning()) {
+            backgroundMode = newBackgroundMode;
+            updates.stop(getReactApplicationContext());
+            updates.start(getReactApplicationContext(), newBackgroundMode);
+        } else {
+            backgroundMode = newBackgroundMode;
         }
+
+        RNLocationMetrics.getInstance().recordConfigure(start);
     }
 
     @ReactMethod
     @SuppressWarnings("unused")
     public void startUpdatingLocation() {
-        // Ensure we have a provider
-        if (locationProvider == null) {
-            locationProvider = createDefaultLocationProvider();
-        }
-
-        if (backgroundMode) {
-            startForegroundService();
-        } else {
-            locationProvider.startUpdatingLocation();
+        updatingLocation = true;
+        getLocationProvider();
+        if (!multiplexer.isEmpty()) {
+            applySubscriptionOptions();
         }
+        updates.start(getReactApplicationContext(), backgroundMode);
     }
 
     @ReactMethod
     @SuppressWarnings("unused")
     public void stopUpdatingLocation() {
-        // Ensure we have a provider
-        if (locationProvider == null) {
-            locationProvider = createDefaultLocationProvider();
+        updatingLocation = false;
+
+        // Keep the provider running for the remaining subscriptions
+        if (!multiplexer.isEmpty()) {
+            applySubscriptionOptions();
+            return;
         }
+        updates.stop(getReactApplicationContext());
 
-        if (backgroundMode) {
-            stopForegroundService();
-        } else {
-            locationProvider.stopUpdatingLocation();
+        // Deliver anything which was still being held back
+        pipeline.flush();
+        filter.reset();
+        smoother.reset();
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void addLocationSubscription(String id, ReadableMap options) {
+        multiplexer.add(id, options);
+        getLocationProvider();
+        applySubscriptionOptions();
+        updates.start(getReactApplicationContext(), backgroundMode);
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void removeLocationSubscription(String id) {
+        multiplexer.remove(id);
+        if (!multiplexer.isEmpty() || updatingLocation) {
+            applySubscriptionOptions();
+            return;
         }
+
+        updates.stop(getReactApplicationContext());
+        pipeline.flush();
+        filter.reset();
+        smoother.reset();
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void startMonitoringSignificantLocationChanges() {
+        significantLocationMonitor.start();
     }
 
-    private void startForegroundService() {
-        if (!RNLocationForegroundService.locationProviderRunning) {
-            ReactApplicationContext context = getReactApplicationContext();
-            Intent intent = new Intent(context, RNLocationForegroundService.class);
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void stopMonitoringSignificantLocationChanges() {
+        significantLocationMonitor.stop();
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void startUpdatingHeading() {
+        headingSensor.start();
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void stopUpdatingHeading() {
+        headingSensor.stop();
+    }
 
-            RNLocationForegroundService.setLocationProvider(locationProvider);
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void getLatestLocation(ReadableMap options, final Promise promise) {
+        long maxAge = Long.MAX_VALUE;
+        double requiredAccuracy = Double.MAX_VALUE;
+        long timeout = DEFAULT_LATEST_LOCATION_TIMEOUT;
 
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                context.startForegroundService(intent);
+        if (options.hasKey("maxAge")) {
+            if (options.getType("maxAge") == ReadableType.Number) {
+                maxAge = (long) options.getDouble("maxAge");
+            } else {
+                Utils.emitWarning(getReactApplicationContext(), "maxAge must be a number", "401");
+            }
+        }
+        if (options.hasKey("requiredAccuracy")) {
+            if (options.getType("requiredAccuracy") == ReadableType.Number) {
+                requiredAccuracy = options.getDouble("requiredAccuracy");
             } else {
-                context.startService(intent);
+                Utils.emitWarning(getReactApplicationContext(), "requiredAccuracy must be a number", "401");
             }
         }
+        if (options.hasKey("timeout")) {
+            if (options.getType("timeout") == ReadableType.Number) {
+                timeout = (long) options.getDouble("timeout");
+            } else if (options.getType("timeout") == ReadableType.Null) {
+                timeout = 0;
+            } else {
+                Utils.emitWarning(getReactApplicationContext(), "timeout must be a number", "401");
+            }
+        }
+
+        // Serve the last fix we have seen if it is good enough, without touching the providers
+        Location lastLocation = pipeline.getLastLocation();
+        if (Utils.isLocationAcceptable(lastLocation, maxAge, requiredAccuracy)) {
+            promise.resolve(Utils.locationToMap(lastLocation));
+            return;
+        }
+
+        getLocationProvider().getLatestLocation(maxAge, requiredAccuracy, timeout, promise);
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void readJournal(double fromTimestamp, double limit, final Promise promise) {
+        try {
+            promise.resolve(journal.read((long) fromTimestamp, (int) limit));
+        } catch (IOException e) {
+            promise.reject("500", "Error reading the location journal", e);
+        }
     }
 
-    private void stopForegroundService() {
-        if (RNLocationForegroundService.locationProviderRunning) {
-            ReactApplicationContext context = getReactApplicationContext();
-            Intent intent = new Intent(context, RNLocationForegroundService.class);
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void truncateJournal(final Promise promise) {
+        journal.truncate();
+        promise.resolve(null);
+    }
 
-            context.stopService(intent);
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void exportTrack(double fromTimestamp, double toTimestamp, ReadableMap options, final Promise promise) {
+        // Fields
+        int fields = RNTrackWriter.FIELD_ACCURACY;
+        if (options.hasKey("fields") && options.getType("fields") == ReadableType.Array) {
+            ReadableArray names = options.getArray("fields");
+            fields = 0;
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.getType(i) == ReadableType.String ? names.getString(i) : "";
+                switch (name) {
+                    case "accuracy":
+                        fields |= RNTrackWriter.FIELD_ACCURACY;
+                        break;
+                    case "altitude":
+                        fields |= RNTrackWriter.FIELD_ALTITUDE;
+                        break;
+                    case "speed":
+                        fields |= RNTrackWriter.FIELD_SPEED;
+                        break;
+                    case "course":
+                        fields |= RNTrackWriter.FIELD_COURSE;
+                        break;
+                    default:
+                        promise.reject("401", "fields was passed an unknown value: " + name);
+                        return;
+                }
+            }
+        }
+
+        // Gzip
+        boolean gzip = options.hasKey("gzip") && options.getType("gzip") == ReadableType.Boolean && options.getBoolean("gzip");
+
+        // File
+        File file;
+        if (options.hasKey("path") && options.getType("path") == ReadableType.String) {
+            file = new File(options.getString("path"));
+        } else {
+            String name = "rnlocation-track-" + (long) fromTimestamp + "-" + (long) toTimestamp + (gzip ? ".rnlt.gz" : ".rnlt");
+            file = new File(getReactApplicationContext().getCacheDir(), name);
+        }
+
+        try {
+            RNTrackWriter writer = new RNTrackWriter(file, fields, gzip);
+            try {
+                journal.export((long) fromTimestamp, (long) toTimestamp, writer);
+            } finally {
+                writer.close();
+            }
+            promise.resolve(file.getAbsolutePath());
+        } catch (IOException e) {
+            file.delete();
+            promise.reject("500", "Error exporting the location track", e);
         }
     }
 
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void getMetrics(final Promise promise) {
+        promise.resolve(RNLocationMetrics.getInstance().toMap());
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void resetMetrics(final Promise promise) {
+        RNLocationMetrics.getInstance().reset();
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void getTripStats(final Promise promise) {
+        promise.resolve(tripStatistics.toMap());
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void resetTripStats(final Promise promise) {
+        tripStatistics.reset();
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void reverseGeocode(double latitude, double longitude, ReadableMap options, final Promise promise) {
+        geocoder.reverseGeocode(latitude, longitude, options, promise);
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void clearGeocodeCache(final Promise promise) {
+        geocoder.clearCache();
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void addGeofences(ReadableArray fences, final Promise promise) {
+        geofences.addGeofences(fences, promise);
+    }
+
+    @ReactMethod
+    @SuppressWarnings("unused")
+    public void removeGeofences(ReadableArray ids, final Promise promise) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.getType(i) == ReadableType.String) {
+                list.add(ids.getString(i));
+            }
+        }
+        geofences.removeGeofences(list);
+        promise.resolve(null);
+    }
+
     // Helpers
 
     private ActivityEventListener activityEventListener = new BaseActivityEventListener() {
         public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent data) {
-            if (locationProvider instanceof RNPlayServicesLocationProvider) {
-                ((RNPlayServicesLocationProvider) locationProvider).onActivityResult(requestCode, resultCode, data);
+            RNLocationProvider provider = locationProvider;
+            if (provider instanceof RNPlayServicesLocationProvider) {
+                ((RNPlayServicesLocationProvider) provider).onActivityResult(requestCode, resultCode, data);
             }
         }
     };
 
+    private LifecycleEventListener lifecycleEventListener = new LifecycleEventListener() {
+        @Override
+        public void onHostResume() {
+            // Deliver anything which was batched up while the app was in the background
+            batcher.setHostResumed(true);
+            batcher.flush();
+        }
+
+        @Override
+        public void onHostPause() {
+            batcher.setHostResumed(false);
+        }
+
+        @Override
+        public void onHostDestroy() {
+            batcher.setHostResumed(false);
+        }
+    };
+
+    /**
+     * Configures the provider with the most demanding parameters of the subscriptions, and of the
+     * regular location updates if they are running.
+     */
+    private void applySubscriptionOptions() {
+        getLocationProvider().configure(getCurrentActivity(), multiplexer.getMergedOptions(updatingLocation), new PromiseImpl(null, null));
+    }
+
+    /**
+     * Returns this module's provider, creating a default one if needed, and makes it the active one.
+     * This also takes over updates left running in the background by a previous React instance.
+     */
+    private RNLocationProvider getLocationProvider() {
+        RNLocationProvider provider = locationProvider;
+        if (provider == null) {
+            provider = createDefaultLocationProvider();
+            locationProvider = provider;
+        }
+        if (updates.getProvider() != provider) {
+            updates.setProvider(provider);
+        }
+        return provider;
+    }
+
     private RNLocationProvider createDefaultLocationProvider() {
         // If we have the correct classes for the fused location provider, we default to that. Otherwise, we default to the built-in methods
         if (Utils.hasFusedLocationProvider()) {
@@ -151,10 +511,30 @@ public class RNLocationModule extends ReactContextBaseJavaModule {
     }
 
     private RNPlayServicesLocationProvider createPlayServicesLocationProvider() {
-        return new RNPlayServicesLocationProvider(getCurrentActivity(), getReactApplicationContext());
+        return new RNPlayServicesLocationProvider(getCurrentActivity(), getReactApplicationContext(), pipeline);
+    }
+
+    private RNHybridLocationProvider createHybridLocationProvider() {
+        return new RNHybridLocationProvider(getCurrentActivity(), getReactApplicationContext(), pipeline);
     }
 
     private RNStandardLocationProvider createStandardLocationProvider() {
-        return new RNStandardLocationProvider(getReactApplicationContext());
+        return new RNStandardLocationProvider(getReactApplicationContext(), pipeline);
     }
+
+    private final RNPowerGovernor.Listener powerGovernorListener = new RNPowerGovernor.Listener() {
+        @Override
+        public void onPowerStepChanged(@Nullable ReadableMap options) {
+            // Laid over the configured options, so they come back once no step applies
+            multiplexer.setPowerStep(options);
+            applySubscriptionOptions();
+        }
+    };
+
+    private final RNLocationProviderFactory replayProviderFactory = new RNLocationProviderFactory() {
+        @Override
+        public RNLocationProvider createLocationProvider(@Nullable Activity activity, ReactApplicationContext context, RNLocationPipeline pipeline) {
+            return new RNReplayLocationProvider(context, pipeline);
+        }
+    };
 }
@@ -0,0 +1,248 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets several consumers receive location updates with their own interval, accuracy and distance
+ * filter. The provider is configured with the most demanding parameters of every active
+ * subscription, plus those given to `configure` while the regular location updates are running,
+ * and each subscription is sent only the fixes which satisfy its own parameters, as
+ * `locationSubscriptionUpdated` events tagged with its id. The step of the power policy which
+ * applies is kept apart from the configured options and laid over the result, so they come back
+ * once it no longer applies. The provider is always sent every configured option, and null for
+ * the interval and distance filter when nothing asks for them, so it never keeps a parameter from
+ * a subscription or power step which has ended.
+ */
+public class RNLocationMultiplexer {
+    private static final String[] ACCURACIES = { "noPower", "lowPower", "balancedPowerAccuracy", "highAccuracy" };
+    private static final double INTERVAL_TOLERANCE = 0.9;
+
+    // The default of both location providers
+    private static final int DEFAULT_ACCURACY = 2;
+
+    private final ReactApplicationContext context;
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+    private final float[] distance = new float[1];
+    private final Subscription base = new Subscription();
+    private final WritableMap configured = Arguments.createMap();
+    private @Nullable ReadableMap powerStep = null;
+
+    public RNLocationMultiplexer(ReactApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Remembers the parameters given to `configure`, so they are kept while subscriptions change.
+     */
+    public synchronized void configure(ReadableMap options) {
+        configured.merge(options);
+
+        // The provider already warns about invalid values
+        Subscription configured = Subscription.fromReactMap(context, options, false);
+        if (configured.interval >= 0) {
+            base.interval = configured.interval;
+        }
+        if (configured.distanceFilter >= 0) {
+            base.distanceFilter = configured.distanceFilter;
+        }
+        if (configured.accuracy >= 0) {
+            base.accuracy = configured.accuracy;
+        }
+    }
+
+    /**
+     * Sets the options of the power policy step which applies, or null when none does.
+     */
+    public synchronized void setPowerStep(@Nullable ReadableMap options) {
+        powerStep = options;
+    }
+
+    public synchronized boolean hasPowerStep() {
+        return powerStep != null;
+    }
+
+    public synchronized void add(String id, ReadableMap options) {
+        subscriptions.put(id, Subscription.fromReactMap(context, options, true));
+    }
+
+    public synchronized void remove(String id) {
+        subscriptions.remove(id);
+    }
+
+    /**
+     * Drops every subscription, which belong to the JS context and end with it.
+     */
+    public synchronized void clear() {
+        subscriptions.clear();
+    }
+
+    public synchronized boolean isEmpty() {
+        return subscriptions.isEmpty();
+    }
+
+    /**
+     * Builds the provider options which satisfy every subscription, and the `configure` parameters
+     * too if includeBase is true, with the power step laid over them. Parameters which none of them
+     * ask for are the configured ones, or the provider's defaults if they were never configured.
+     */
+    public synchronized WritableMap getMergedOptions(boolean includeBase) {
+        long interval = -1;
+        float distanceFilter = -1;
+        int accuracy = -1;
+        if (includeBase) {
+            interval = base.interval;
+            distanceFilter = base.distanceFilter;
+            accuracy = base.accuracy;
+        }
+        for (Subscription subscription : subscriptions.values()) {
+            interval = mostDemanding(interval, subscription.interval);
+            distanceFilter = mostDemanding(distanceFilter, subscription.distanceFilter);
+            accuracy = Math.max(accuracy, subscription.accuracy);
+        }
+        interval = interval >= 0 ? interval : base.interval;
+        distanceFilter = distanceFilter >= 0 ? distanceFilter : base.distanceFilter;
+        accuracy = accuracy >= 0 ? accuracy : base.accuracy >= 0 ? base.accuracy : DEFAULT_ACCURACY;
+
+        // The providers go back to their own defaults for null
+        WritableMap options = Arguments.createMap();
+        options.merge(configured);
+        if (interval >= 0) {
+            options.putDouble("interval", interval);
+        } else {
+            options.putNull("interval");
+        }
+        if (distanceFilter >= 0) {
+            options.putDouble("distanceFilter", distanceFilter);
+        } else {
+            options.putNull("distanceFilter");
+        }
+        WritableMap desiredAccuracy = Arguments.createMap();
+        desiredAccuracy.putString("android", ACCURACIES[accuracy]);
+        options.putMap("desiredAccuracy", desiredAccuracy);
+        if (powerStep != null) {
+            options.merge(powerStep);
+        }
+        return options;
+    }
+
+    /**
+     * Sends each subscription the fixes which satisfy its interval and distance filter.
+     */
+    public synchronized void dispatch(List<Location> locations) {
+        if (subscriptions.isEmpty() || !context.hasActiveCatalystInstance()) {
+            return;
+        }
+
+        for (Map.Entry<String, Subscription> entry : subscriptions.entrySet()) {
+            Subscription subscription = entry.getValue();
+            WritableArray results = null;
+            for (int i = 0; i < locations.size(); i++) {
+                Location location = locations.get(i);
+                if (!subscription.wants(location, distance)) {
+                    continue;
+                }
+                subscription.lastDelivered = location;
+                if (results == null) {
+                    results = Arguments.createArray();
+                }
+                results.pushMap(Utils.locationToMap(location));
+            }
+
+            if (results != null) {
+                WritableMap event = Arguments.createMap();
+                event.putString("id", entry.getKey());
+                event.putArray("locations", results);
+                Utils.emitEvent(context, "locationSubscriptionUpdated", event);
+            }
+        }
+    }
+
+    // Helpers
+
+    private static long mostDemanding(long current, long candidate) {
+        if (candidate < 0) {
+            return current;
+        }
+        return current < 0 ? candidate : Math.min(current, candidate);
+    }
+
+    private static float mostDemanding(float current, float candidate) {
+        if (candidate < 0) {
+            return current;
+        }
+        return current < 0 ? candidate : Math.min(current, candidate);
+    }
+
+    private static class Subscription {
+        // -1 means the parameter was not given
+        private long interval = -1;
+        private float distanceFilter = -1;
+        private int accuracy = -1;
+
+        private @Nullable Location lastDelivered = null;
+
+        private boolean wants(Location location, float[] distance) {
+            if (lastDelivered == null) {
+                return true;
+            }
+            if (interval > 0 && location.getTime() - lastDelivered.getTime() < interval * INTERVAL_TOLERANCE) {
+                return false;
+            }
+            if (distanceFilter > 0) {
+                Location.distanceBetween(lastDelivered.getLatitude(), lastDelivered.getLongitude(), location.getLatitude(), location.getLongitude(), distance);
+                return distance[0] >= distanceFilter;
+            }
+            return location.getTime() > lastDelivered.getTime();
+        }
+
+        private static Subscription fromReactMap(ReactApplicationContext context, ReadableMap map, boolean warn) {
+            Subscription subscription = new Subscription();
+
+            // Interval
+            if (map.hasKey("interval")) {
+                if (map.getType("interval") == ReadableType.Number) {
+                    subscription.interval = Math.max(0, (long) map.getDouble("interval"));
+                } else if (warn) {
+                    Utils.emitWarning(context, "interval must be a number", "401");
+                }
+            }
+
+            // Distance filter
+            if (map.hasKey("distanceFilter")) {
+                if (map.getType("distanceFilter") == ReadableType.Number) {
+                    subscription.distanceFilter = Math.max(0, (float) map.getDouble("distanceFilter"));
+                } else if (warn && map.getType("distanceFilter") != ReadableType.Null) {
+                    Utils.emitWarning(context, "distanceFilter must be a number", "401");
+                }
+            }
+
+            // Accuracy
+            if (map.hasKey("desiredAccuracy") && map.getType("desiredAccuracy") == ReadableType.Map) {
+                ReadableMap desiredAccuracy = map.getMap("desiredAccuracy");
+                if (desiredAccuracy.hasKey("android") && desiredAccuracy.getType("android") == ReadableType.String) {
+                    String desiredAccuracyAndroid = desiredAccuracy.getString("android");
+                    for (int i = 0; i < ACCURACIES.length; i++) {
+                        if (ACCURACIES[i].equals(desiredAccuracyAndroid)) {
+                            subscription.accuracy = i;
+                        }
+                    }
+                }
+            }
+
+            return subscription;
+        }
+    }
+}
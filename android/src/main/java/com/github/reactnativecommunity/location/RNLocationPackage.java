@@ -6,10 +6,29 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.uimanager.ViewManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RNLocationPackage implements ReactPackage {
+    private static final List<String> BUILT_IN_PROVIDERS = Arrays.asList("auto", "playServices", "hybrid", "standard", RNReplayLocationProvider.NAME);
+
+    private final Map<String, RNLocationProviderFactory> providerFactories = new LinkedHashMap<>();
+
+    /**
+     * Registers a custom location provider, which is used when `androidProvider` is set to the given
+     * name.
+     */
+    public RNLocationPackage addLocationProvider(String name, RNLocationProviderFactory factory) {
+        if (BUILT_IN_PROVIDERS.contains(name)) {
+            throw new IllegalArgumentException("A built-in location provider is already named " + name);
+        }
+        providerFactories.put(name, factory);
+        return this;
+    }
+
     @Override
     public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
         return Collections.emptyList();
@@ -19,7 +38,7 @@ public class RNLocationPackage implements ReactPackage {
     public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
         List<NativeModule> modules = new ArrayList<>();
 
-        modules.add(new RNLocationModule(reactContext));
+        modules.add(new RNLocationModule(reactContext, new LinkedHashMap<>(providerFactories)));
 
         return modules;
     }
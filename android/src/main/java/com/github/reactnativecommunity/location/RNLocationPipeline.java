@@ -0,0 +1,133 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The single entry point for fixes produced by the location providers. It remembers the most
+ * recent fix so it can be served without starting the providers, runs the fixes through the
+ * filter and the smoother, checks them against the geofences, adds them to the trip statistics,
+ * writes the ones which pass to the journal, and then passes them on to the subscriptions and the
+ * batcher to be emitted.
+ */
+public class RNLocationPipeline {
+    private static WeakReference<RNLocationPipeline> activePipeline = new WeakReference<>(null);
+
+    private final RNLocationFilter filter;
+    private final RNKalmanSmoother smoother;
+    private final RNLocationBatcher batcher;
+    private final RNLocationJournal journal;
+    private final RNGeofenceEngine geofences;
+    private final RNLocationMultiplexer multiplexer;
+    private final RNTripStatistics tripStatistics;
+    private final List<Location> accepted = new ArrayList<>();
+    private @Nullable Location lastLocation;
+
+    public RNLocationPipeline(RNLocationFilter filter, RNKalmanSmoother smoother, RNLocationBatcher batcher, RNLocationJournal journal, RNGeofenceEngine geofences, RNLocationMultiplexer multiplexer, RNTripStatistics tripStatistics) {
+        this.filter = filter;
+        this.smoother = smoother;
+        this.batcher = batcher;
+        this.journal = journal;
+        this.geofences = geofences;
+        this.multiplexer = multiplexer;
+        this.tripStatistics = tripStatistics;
+        activePipeline = new WeakReference<>(this);
+    }
+
+    @Nullable
+    public static RNLocationPipeline getActivePipeline() {
+        return activePipeline.get();
+    }
+
+    public synchronized void onLocation(Location location) {
+        long start = System.nanoTime();
+        recordLocation(location);
+
+        Location output = process(location);
+        if (output != null) {
+            journal.append(output);
+            multiplexer.dispatch(Collections.singletonList(output));
+            batcher.add(output);
+        }
+        RNLocationMetrics.getInstance().recordProcessing(start);
+    }
+
+    public synchronized void onLocations(List<Location> locations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < locations.size(); i++) {
+            Location location = locations.get(i);
+            recordLocation(location);
+
+            Location output = process(location);
+            if (output != null) {
+                journal.append(output);
+                accepted.add(output);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            multiplexer.dispatch(accepted);
+            batcher.addAll(accepted);
+            accepted.clear();
+        }
+        RNLocationMetrics.getInstance().recordProcessing(start);
+    }
+
+    /**
+     * Handles a batch delivered through a PendingIntent, which is always persisted since the React
+     * instance may be detached and unable to emit it.
+     */
+    public synchronized void onDeliveredLocations(List<Location> locations) {
+        journal.appendDelivered(locations);
+        onLocations(locations);
+    }
+
+    /**
+     * Returns the fix which should be emitted for a new fix, or null if nothing should be emitted.
+     */
+    @Nullable
+    private Location process(Location location) {
+        RNLocationMetrics.getInstance().onFixReceived(location);
+        if (!filter.accept(location)) {
+            RNLocationMetrics.getInstance().onFixFiltered();
+            return null;
+        }
+        Location smoothed = smoother.smooth(location);
+        geofences.onLocation(smoothed);
+        tripStatistics.onLocation(smoothed);
+        return filter.simplify(smoothed);
+    }
+
+    /**
+     * Emits everything which is being held back, either by the filter or the batcher.
+     */
+    public synchronized void flush() {
+        Location pending = filter.flush();
+        if (pending != null) {
+            journal.append(pending);
+            multiplexer.dispatch(Collections.singletonList(pending));
+            batcher.add(pending);
+        }
+        batcher.flush();
+    }
+
+    /**
+     * Updates the cached fix without emitting it, as long as it is newer than the cached one.
+     */
+    public synchronized void recordLocation(Location location) {
+        if (lastLocation == null || location.getTime() >= lastLocation.getTime()) {
+            lastLocation = location;
+        }
+    }
+
+    @Nullable
+    public synchronized Location getLastLocation() {
+        return lastLocation;
+    }
+}
@@ -9,4 +9,5 @@ public interface RNLocationProvider {
     void configure(final Activity activity, final ReadableMap options, final Promise promise);
     void startUpdatingLocation();
     void stopUpdatingLocation();
+    void getLatestLocation(long maxAge, double requiredAccuracy, long timeout, final Promise promise);
 }
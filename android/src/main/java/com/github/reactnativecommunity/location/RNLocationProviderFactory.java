@@ -0,0 +1,16 @@
+package com.github.reactnativecommunity.location;
+
+import android.app.Activity;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+/**
+ * Creates a custom location provider, registered by name with `RNLocationPackage.addLocationProvider`
+ * and selected with the `androidProvider` option. The provider should pass its fixes to
+ * `RNLocationPipeline.onLocation` or `RNLocationPipeline.onLocations`.
+ */
+public interface RNLocationProviderFactory {
+    RNLocationProvider createLocationProvider(@Nullable Activity activity, ReactApplicationContext context, RNLocationPipeline pipeline);
+}
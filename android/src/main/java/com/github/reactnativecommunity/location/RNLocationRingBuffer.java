@@ -0,0 +1,261 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Base64;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed capacity ring of location fixes stored as primitive columns. Writing a fix copies its
+ * values into the preallocated arrays so nothing is allocated per fix; the bridge maps are only
+ * built when the buffer is drained.
+ *
+ * The packed form is every fix as `PACKED_STRIDE` little-endian doubles, in the order latitude,
+ * longitude, accuracy, altitude, altitudeAccuracy, course, courseAccuracy, speed, speedAccuracy,
+ * timestamp and fromMockProvider (0 or 1), encoded as base64 so it crosses the bridge as one string.
+ */
+public class RNLocationRingBuffer {
+    public static final int FIELD_LATITUDE = 1;
+    public static final int FIELD_LONGITUDE = 1 << 1;
+    public static final int FIELD_ACCURACY = 1 << 2;
+    public static final int FIELD_ALTITUDE = 1 << 3;
+    public static final int FIELD_ALTITUDE_ACCURACY = 1 << 4;
+    public static final int FIELD_COURSE = 1 << 5;
+    public static final int FIELD_COURSE_ACCURACY = 1 << 6;
+    public static final int FIELD_SPEED = 1 << 7;
+    public static final int FIELD_SPEED_ACCURACY = 1 << 8;
+    public static final int FIELD_TIMESTAMP = 1 << 9;
+    public static final int FIELD_FROM_MOCK_PROVIDER = 1 << 10;
+    public static final int ALL_FIELDS = (1 << 11) - 1;
+    public static final int PACKED_STRIDE = 11;
+
+    private static final int FLAG_FROM_MOCK_PROVIDER = 1;
+
+    private final int capacity;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final double[] accuracy;
+    private final double[] altitude;
+    private final double[] altitudeAccuracy;
+    private final double[] course;
+    private final double[] courseAccuracy;
+    private final double[] speed;
+    private final double[] speedAccuracy;
+    private final long[] time;
+    private final int[] flags;
+
+    private int head = 0;
+    private int size = 0;
+
+    public RNLocationRingBuffer(int capacity) {
+        this.capacity = capacity;
+        latitude = new double[capacity];
+        longitude = new double[capacity];
+        accuracy = new double[capacity];
+        altitude = new double[capacity];
+        altitudeAccuracy = new double[capacity];
+        course = new double[capacity];
+        courseAccuracy = new double[capacity];
+        speed = new double[capacity];
+        speedAccuracy = new double[capacity];
+        time = new long[capacity];
+        flags = new int[capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Copies the fix into the next slot, overwriting the oldest fix if the buffer is full.
+     */
+    public void write(Location location) {
+        int index = (head + size) % capacity;
+        if (size == capacity) {
+            head = (head + 1) % capacity;
+        } else {
+            size++;
+        }
+
+        latitude[index] = location.getLatitude();
+        longitude[index] = location.getLongitude();
+        accuracy[index] = location.getAccuracy();
+        altitude[index] = location.getAltitude();
+        course[index] = location.getBearing();
+        speed[index] = location.getSpeed();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            altitudeAccuracy[index] = location.getVerticalAccuracyMeters();
+            courseAccuracy[index] = location.getBearingAccuracyDegrees();
+            speedAccuracy[index] = location.getSpeedAccuracyMetersPerSecond();
+        } else {
+            altitudeAccuracy[index] = 0.0;
+            courseAccuracy[index] = 0.0;
+            speedAccuracy[index] = 0.0;
+        }
+        time[index] = location.getTime();
+        flags[index] = location.isFromMockProvider() ? FLAG_FROM_MOCK_PROVIDER : 0;
+    }
+
+    /**
+     * Converts every buffered fix into a map containing only the requested fields and empties the
+     * buffer.
+     */
+    public WritableArray drain(int fieldMask) {
+        WritableArray results = Arguments.createArray();
+        for (int i = 0; i < size; i++) {
+            results.pushMap(toMap((head + i) % capacity, fieldMask));
+        }
+        clear();
+        return results;
+    }
+
+    /**
+     * Same as `drain`, but produces bundles which can be passed to a headless JS task.
+     */
+    public Bundle[] drainToBundles(int fieldMask) {
+        Bundle[] results = new Bundle[size];
+        for (int i = 0; i < size; i++) {
+            results[i] = toBundle((head + i) % capacity, fieldMask);
+        }
+        clear();
+        return results;
+    }
+
+    /**
+     * Same as `drain`, but produces the packed form of every field.
+     */
+    public String drainPacked() {
+        ByteBuffer bytes = ByteBuffer.allocate(size * PACKED_STRIDE * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % capacity;
+            bytes.putDouble(latitude[index]);
+            bytes.putDouble(longitude[index]);
+            bytes.putDouble(accuracy[index]);
+            bytes.putDouble(altitude[index]);
+            bytes.putDouble(altitudeAccuracy[index]);
+            bytes.putDouble(course[index]);
+            bytes.putDouble(courseAccuracy[index]);
+            bytes.putDouble(speed[index]);
+            bytes.putDouble(speedAccuracy[index]);
+            bytes.putDouble(time[index]);
+            bytes.putDouble((flags[index] & FLAG_FROM_MOCK_PROVIDER) != 0 ? 1 : 0);
+        }
+        clear();
+        return Base64.encodeToString(bytes.array(), Base64.NO_WRAP);
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    // Helpers
+
+    private WritableMap toMap(int index, int fieldMask) {
+        WritableMap map = Arguments.createMap();
+
+        if ((fieldMask & FIELD_LATITUDE) != 0) map.putDouble("latitude", latitude[index]);
+        if ((fieldMask & FIELD_LONGITUDE) != 0) map.putDouble("longitude", longitude[index]);
+        if ((fieldMask & FIELD_ACCURACY) != 0) map.putDouble("accuracy", accuracy[index]);
+        if ((fieldMask & FIELD_ALTITUDE) != 0) map.putDouble("altitude", altitude[index]);
+        if ((fieldMask & FIELD_ALTITUDE_ACCURACY) != 0) map.putDouble("altitudeAccuracy", altitudeAccuracy[index]);
+        if ((fieldMask & FIELD_COURSE) != 0) map.putDouble("course", course[index]);
+        if ((fieldMask & FIELD_COURSE_ACCURACY) != 0) map.putDouble("courseAccuracy", courseAccuracy[index]);
+        if ((fieldMask & FIELD_SPEED) != 0) map.putDouble("speed", speed[index]);
+        if ((fieldMask & FIELD_SPEED_ACCURACY) != 0) map.putDouble("speedAccuracy", speedAccuracy[index]);
+        if ((fieldMask & FIELD_TIMESTAMP) != 0) map.putDouble("timestamp", time[index]);
+        if ((fieldMask & FIELD_FROM_MOCK_PROVIDER) != 0) map.putBoolean("fromMockProvider", (flags[index] & FLAG_FROM_MOCK_PROVIDER) != 0);
+
+        return map;
+    }
+
+    private Bundle toBundle(int index, int fieldMask) {
+        Bundle bundle = new Bundle();
+
+        if ((fieldMask & FIELD_LATITUDE) != 0) bundle.putDouble("latitude", latitude[index]);
+        if ((fieldMask & FIELD_LONGITUDE) != 0) bundle.putDouble("longitude", longitude[index]);
+        if ((fieldMask & FIELD_ACCURACY) != 0) bundle.putDouble("accuracy", accuracy[index]);
+        if ((fieldMask & FIELD_ALTITUDE) != 0) bundle.putDouble("altitude", altitude[index]);
+        if ((fieldMask & FIELD_ALTITUDE_ACCURACY) != 0) bundle.putDouble("altitudeAccuracy", altitudeAccuracy[index]);
+        if ((fieldMask & FIELD_COURSE) != 0) bundle.putDouble("course", course[index]);
+        if ((fieldMask & FIELD_COURSE_ACCURACY) != 0) bundle.putDouble("courseAccuracy", courseAccuracy[index]);
+        if ((fieldMask & FIELD_SPEED) != 0) bundle.putDouble("speed", speed[index]);
+        if ((fieldMask & FIELD_SPEED_ACCURACY) != 0) bundle.putDouble("speedAccuracy", speedAccuracy[index]);
+        if ((fieldMask & FIELD_TIMESTAMP) != 0) bundle.putDouble("timestamp", time[index]);
+        if ((fieldMask & FIELD_FROM_MOCK_PROVIDER) != 0) bundle.putBoolean("fromMockProvider", (flags[index] & FLAG_FROM_MOCK_PROVIDER) != 0);
+
+        return bundle;
+    }
+
+    public static int fieldMaskFromArray(ReactApplicationContext context, ReadableArray fields) {
+        int mask = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.getType(i) != ReadableType.String) {
+                Utils.emitWarning(context, "locationFields must only contain strings", "401");
+                continue;
+            }
+
+            String field = fields.getString(i);
+            switch (field) {
+                case "latitude":
+                    mask |= FIELD_LATITUDE;
+                    break;
+                case "longitude":
+                    mask |= FIELD_LONGITUDE;
+                    break;
+                case "accuracy":
+                    mask |= FIELD_ACCURACY;
+                    break;
+                case "altitude":
+                    mask |= FIELD_ALTITUDE;
+                    break;
+                case "altitudeAccuracy":
+                    mask |= FIELD_ALTITUDE_ACCURACY;
+                    break;
+                case "course":
+                    mask |= FIELD_COURSE;
+                    break;
+                case "courseAccuracy":
+                    mask |= FIELD_COURSE_ACCURACY;
+                    break;
+                case "speed":
+                    mask |= FIELD_SPEED;
+                    break;
+                case "speedAccuracy":
+                    mask |= FIELD_SPEED_ACCURACY;
+                    break;
+                case "timestamp":
+                    mask |= FIELD_TIMESTAMP;
+                    break;
+                case "fromMockProvider":
+                    mask |= FIELD_FROM_MOCK_PROVIDER;
+                    break;
+                default:
+                    Utils.emitWarning(context, "locationFields was passed an unknown value: " + field, "401");
+            }
+        }
+        return mask;
+    }
+}
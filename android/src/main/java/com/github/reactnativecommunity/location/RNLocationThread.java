@@ -0,0 +1,35 @@
+package com.github.reactnativecommunity.location;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The thread which location and sensor callbacks are delivered on, so converting, filtering and
+ * batching the fixes never competes with rendering on the main thread. It is shared by the module
+ * and the foreground service, and lives as long as the process.
+ */
+public class RNLocationThread {
+    private static final String NAME = "RNLocationThread";
+
+    private static @Nullable HandlerThread thread = null;
+    private static @Nullable Handler handler = null;
+
+    public static synchronized Looper getLooper() {
+        if (thread == null) {
+            thread = new HandlerThread(NAME, Process.THREAD_PRIORITY_DEFAULT);
+            thread.start();
+        }
+        return thread.getLooper();
+    }
+
+    public static synchronized Handler getHandler() {
+        if (handler == null) {
+            handler = new Handler(getLooper());
+        }
+        return handler;
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Reads recorded fixes from a GPX file, a CSV file or a location journal segment, depending on the
+ * extension of the file.
+ *
+ * CSV lines are `timestamp,latitude,longitude[,accuracy[,altitude[,speed[,course]]]]`, with the
+ * timestamp in milliseconds since the epoch. Lines which do not start with a number, such as a
+ * header, are skipped. Fixes without a timestamp are given one a second after the previous fix.
+ */
+public class RNLocationTrace {
+    private static final String PROVIDER = "replay";
+    private static final long DEFAULT_SPACING = 1000;
+
+    public static List<Location> read(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.US);
+        List<Location> locations;
+        if (name.endsWith(".gpx")) {
+            locations = readGpx(file);
+        } else if (name.endsWith(".csv")) {
+            locations = readCsv(file);
+        } else {
+            locations = RNLocationJournal.readLocations(file);
+        }
+        fillMissingTimes(locations);
+        return locations;
+    }
+
+    // Helpers
+
+    private static List<Location> readGpx(File file) throws IOException {
+        List<Location> locations = new ArrayList<>();
+        InputStream input = new FileInputStream(file);
+        try {
+            XmlPullParser parser = Xml.newPullParser();
+            parser.setInput(input, null);
+
+            Location current = null;
+            String text = null;
+            for (int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+                if (event == XmlPullParser.START_TAG) {
+                    String tag = parser.getName();
+                    if ("trkpt".equals(tag) || "rtept".equals(tag) || "wpt".equals(tag)) {
+                        current = new Location(PROVIDER);
+                        current.setLatitude(Double.parseDouble(parser.getAttributeValue(null, "lat")));
+                        current.setLongitude(Double.parseDouble(parser.getAttributeValue(null, "lon")));
+                    }
+                    text = null;
+                } else if (event == XmlPullParser.TEXT) {
+                    text = parser.getText();
+                } else if (event == XmlPullParser.END_TAG && current != null) {
+                    String tag = parser.getName();
+                    if ("trkpt".equals(tag) || "rtept".equals(tag) || "wpt".equals(tag)) {
+                        locations.add(current);
+                        current = null;
+                    } else if (text != null) {
+                        applyGpxElement(current, tag, text.trim());
+                    }
+                }
+            }
+        } catch (XmlPullParserException | NumberFormatException e) {
+            throw new IOException("Invalid GPX file. Detail: " + e.getLocalizedMessage());
+        } finally {
+            input.close();
+        }
+        return locations;
+    }
+
+    private static void applyGpxElement(Location location, String tag, String value) throws IOException {
+        switch (tag) {
+            case "ele":
+                location.setAltitude(Double.parseDouble(value));
+                break;
+            case "time":
+                location.setTime(parseGpxTime(value));
+                break;
+            case "hdop":
+                // Roughly 5 meters per unit of horizontal dilution of precision
+                location.setAccuracy(Float.parseFloat(value) * 5);
+                break;
+            case "speed":
+                location.setSpeed(Float.parseFloat(value));
+                break;
+            case "course":
+                location.setBearing(Float.parseFloat(value));
+                break;
+        }
+    }
+
+    private static long parseGpxTime(String value) throws IOException {
+        // Drop fractional seconds and the zone designator, GPX times are UTC
+        String time = value.length() >= 19 ? value.substring(0, 19) : value;
+        int fraction = 0;
+        if (value.length() > 20 && value.charAt(19) == '.') {
+            int end = 20;
+            while (end < value.length() && Character.isDigit(value.charAt(end))) {
+                end++;
+            }
+            String digits = (value.substring(20, end) + "00").substring(0, 3);
+            fraction = Integer.parseInt(digits);
+        }
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse(time).getTime() + fraction;
+        } catch (ParseException e) {
+            throw new IOException("Invalid GPX time: " + value);
+        }
+    }
+
+    private static List<Location> readCsv(File file) throws IOException {
+        List<Location> locations = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                if (columns.length < 3 || !isNumber(columns[0])) {
+                    continue;
+                }
+
+                try {
+                    Location location = new Location(PROVIDER);
+                    location.setTime((long) Double.parseDouble(columns[0].trim()));
+                    location.setLatitude(Double.parseDouble(columns[1].trim()));
+                    location.setLongitude(Double.parseDouble(columns[2].trim()));
+                    if (columns.length > 3 && isNumber(columns[3])) {
+                        location.setAccuracy(Float.parseFloat(columns[3].trim()));
+                    }
+                    if (columns.length > 4 && isNumber(columns[4])) {
+                        location.setAltitude(Double.parseDouble(columns[4].trim()));
+                    }
+                    if (columns.length > 5 && isNumber(columns[5])) {
+                        location.setSpeed(Float.parseFloat(columns[5].trim()));
+                    }
+                    if (columns.length > 6 && isNumber(columns[6])) {
+                        location.setBearing(Float.parseFloat(columns[6].trim()));
+                    }
+                    locations.add(location);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid CSV line: " + line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return locations;
+    }
+
+    private static boolean isNumber(String value) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return false;
+        }
+        char first = trimmed.charAt(0);
+        return Character.isDigit(first) || first == '-' || first == '.';
+    }
+
+    private static void fillMissingTimes(List<Location> locations) {
+        long previous = -1;
+        for (int i = 0; i < locations.size(); i++) {
+            Location location = locations.get(i);
+            if (location.getTime() <= 0 || location.getTime() < previous) {
+                location.setTime(previous < 0 ? 0 : previous + DEFAULT_SPACING);
+            }
+            previous = location.getTime();
+        }
+    }
+}
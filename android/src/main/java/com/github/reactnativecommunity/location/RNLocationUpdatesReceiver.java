@@ -0,0 +1,84 @@
+package com.github.reactnativecommunity.location;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Build;
+
+import com.google.android.gms.location.LocationResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Receives the batches of fixes delivered through a PendingIntent with `pendingIntentDelivery`,
+ * which the system can hold for up to `maxWaitTime` and deliver by starting the app process. The
+ * fixes are always written to the journal, to be read with `readJournal` once the app is running
+ * again, and while a pipeline exists they also go through it like any others.
+ */
+public class RNLocationUpdatesReceiver extends BroadcastReceiver {
+    private static final String ACTION = "com.github.reactnativecommunity.location.LOCATION_UPDATES";
+
+    public static PendingIntent getPendingIntent(Context context) {
+        Intent intent = new Intent(context, RNLocationUpdatesReceiver.class).setAction(ACTION);
+        // The location services add the fixes to the intent, so it has to stay mutable
+        int flag = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE
+                : PendingIntent.FLAG_UPDATE_CURRENT;
+        return PendingIntent.getBroadcast(context, 0, intent, flag);
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION.equals(intent.getAction())) {
+            return;
+        }
+
+        final List<Location> locations = extractLocations(intent);
+        if (locations.isEmpty()) {
+            return;
+        }
+
+        final RNLocationPipeline pipeline = RNLocationPipeline.getActivePipeline();
+        if (pipeline == null) {
+            RNLocationJournal.appendAll(context, locations);
+            return;
+        }
+
+        // Keep the pipeline on the thread the providers use
+        RNLocationThread.getHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.onDeliveredLocations(locations);
+            }
+        });
+    }
+
+    // Helpers
+
+    private static List<Location> extractLocations(Intent intent) {
+        // Fused provider batches
+        if (Utils.hasFusedLocationProvider() && LocationResult.hasResult(intent)) {
+            LocationResult result = LocationResult.extractResult(intent);
+            if (result != null) {
+                return result.getLocations();
+            }
+        }
+
+        // Location manager batches, then single fixes
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            List<Location> batch = intent.getParcelableArrayListExtra(LocationManager.KEY_LOCATIONS);
+            if (batch != null) {
+                return batch;
+            }
+        }
+        Location location = intent.getParcelableExtra(LocationManager.KEY_LOCATION_CHANGED);
+        if (location != null) {
+            return Collections.singletonList(location);
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.reactnativecommunity.location;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks whether location updates are running, and in which mode, for both the module and the
+ * foreground service. Every transition is a compare and set on a single state, so concurrent
+ * calls to start and stop from the native modules thread, the main thread and the service
+ * lifecycle are idempotent and only ever leave one provider registered. A start or stop which
+ * arrives while the opposite transition is in progress is carried out once it completes, and a
+ * provider which is set while updates are running is swapped in as a transition of its own.
+ *
+ * IDLE -> STARTING -> RUNNING_FOREGROUND or RUNNING_BACKGROUND -> STOPPING -> IDLE
+ */
+public class RNLocationUpdatesState {
+    public static final int IDLE = 0;
+    public static final int STARTING = 1;
+    public static final int RUNNING_FOREGROUND = 2;
+    public static final int RUNNING_BACKGROUND = 3;
+    public static final int STOPPING = 4;
+
+    private static final int NO_REQUEST = 0;
+    private static final int REQUEST_FOREGROUND = 1;
+    private static final int REQUEST_BACKGROUND = 2;
+    private static final int REQUEST_STOP = 3;
+
+    private static final RNLocationUpdatesState instance = new RNLocationUpdatesState();
+
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private final AtomicInteger pendingRequest = new AtomicInteger(NO_REQUEST);
+    private final AtomicInteger backgroundGeneration = new AtomicInteger(0);
+    private final AtomicReference<RNLocationProvider> provider = new AtomicReference<>(null);
+
+    // Only changed by whoever holds the STARTING or STOPPING state
+    private volatile @Nullable RNLocationProvider activeProvider = null;
+    private volatile @Nullable Context context = null;
+
+    public static RNLocationUpdatesState getInstance() {
+        return instance;
+    }
+
+    public int getState() {
+        return state.get();
+    }
+
+    public boolean isRunning() {
+        int current = state.get();
+        return current == RUNNING_FOREGROUND || current == RUNNING_BACKGROUND;
+    }
+
+    public boolean isRunningInBackground() {
+        return state.get() == RUNNING_BACKGROUND;
+    }
+
+    /**
+     * Identifies the current run of background updates, so a service can tell whether it belongs
+     * to it.
+     */
+    public int getBackgroundGeneration() {
+        return backgroundGeneration.get();
+    }
+
+    @Nullable
+    public RNLocationProvider getProvider() {
+        return provider.get();
+    }
+
+    /**
+     * Replaces the provider. If updates are running they are moved over to the new provider.
+     */
+    public void setProvider(RNLocationProvider newProvider) {
+        provider.set(newProvider);
+
+        // While starting or stopping, whoever holds the transition picks the new provider up
+        int current = state.get();
+        if ((current == RUNNING_FOREGROUND || current == RUNNING_BACKGROUND) && state.compareAndSet(current, STARTING)) {
+            settle(current);
+            runPendingRequest();
+        }
+    }
+
+    /**
+     * Starts location updates, in a foreground service if background is true. Does nothing if they
+     * are already running or being started. If they are being stopped, they are started again once
+     * the stop completes.
+     */
+    public boolean start(Context context, boolean background) {
+        this.context = context;
+        int request = background ? REQUEST_BACKGROUND : REQUEST_FOREGROUND;
+        while (!state.compareAndSet(IDLE, STARTING)) {
+            int current = state.get();
+            if (current == STOPPING) {
+                if (defer(request, STOPPING)) {
+                    return true;
+                }
+            } else if (current == STARTING) {
+                // Cancel a stop which is waiting for this start to complete
+                return pendingRequest.compareAndSet(REQUEST_STOP, NO_REQUEST);
+            } else if (current != IDLE) {
+                return false;
+            }
+        }
+
+        if (provider.get() == null) {
+            state.set(IDLE);
+            runPendingRequest();
+            return false;
+        }
+        RNLocationMetrics.getInstance().onUpdatesStarted();
+        if (background) {
+            backgroundGeneration.incrementAndGet();
+        }
+        settle(background ? RUNNING_BACKGROUND : RUNNING_FOREGROUND);
+
+        if (background) {
+            Intent intent = new Intent(context, RNLocationForegroundService.class);
+            try {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    context.startForegroundService(intent);
+                } else {
+                    context.startService(intent);
+                }
+            } catch (IllegalStateException | SecurityException e) {
+                // Updates keep running without the service, for as long as the app is allowed to
+            }
+        }
+        runPendingRequest();
+        return true;
+    }
+
+    /**
+     * Stops location updates, and the foreground service if they were running in the background.
+     * Does nothing if they are not running. If they are being started, they are stopped once the
+     * start completes.
+     */
+    public boolean stop(Context context) {
+        this.context = context;
+        while (true) {
+            int current = state.get();
+            if (current == RUNNING_FOREGROUND || current == RUNNING_BACKGROUND) {
+                if (state.compareAndSet(current, STOPPING)) {
+                    stopActiveProvider(current == RUNNING_BACKGROUND);
+                    return true;
+                }
+            } else if (current == STARTING) {
+                if (defer(REQUEST_STOP, STARTING)) {
+                    return true;
+                }
+            } else if (current == STOPPING) {
+                // Cancel a start which is waiting for this stop to complete
+                return pendingRequest.getAndSet(NO_REQUEST) != NO_REQUEST;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Called when the foreground service goes away. Stops location updates only if they are still
+     * running in the background for that service, so a service which is destroyed late cannot stop
+     * updates which were started again since.
+     */
+    public void onServiceStopped(int generation) {
+        if (generation != backgroundGeneration.get() || !state.compareAndSet(RUNNING_BACKGROUND, STOPPING)) {
+            return;
+        }
+        stopActiveProvider(false);
+    }
+
+    // Helpers
+
+    /**
+     * Registers the current provider in place of the running one, and ends the transition in the
+     * given running state. A provider which is set meanwhile is swapped in before returning.
+     */
+    private void settle(int runningState) {
+        do {
+            RNLocationProvider wanted = provider.get();
+            RNLocationProvider running = activeProvider;
+            if (wanted != running) {
+                if (running != null) {
+                    running.stopUpdatingLocation();
+                }
+                wanted.startUpdatingLocation();
+                activeProvider = wanted;
+            }
+            state.set(runningState);
+        } while (provider.get() != activeProvider && state.compareAndSet(runningState, STARTING));
+    }
+
+    private void stopActiveProvider(boolean stopService) {
+        RNLocationProvider running = activeProvider;
+        activeProvider = null;
+        if (running != null) {
+            running.stopUpdatingLocation();
+        }
+
+        Context current = context;
+        if (stopService && current != null) {
+            current.stopService(new Intent(current, RNLocationForegroundService.class));
+        }
+        state.set(IDLE);
+        runPendingRequest();
+    }
+
+    /**
+     * Leaves a request for whoever holds the given transition. Returns false if the transition
+     * completed before it could see the request, in which case the caller should try again.
+     */
+    private boolean defer(int request, int transition) {
+        pendingRequest.set(request);
+        if (state.get() == transition) {
+            return true;
+        }
+        return !pendingRequest.compareAndSet(request, NO_REQUEST);
+    }
+
+    private void runPendingRequest() {
+        int request = pendingRequest.getAndSet(NO_REQUEST);
+        Context current = context;
+        if (request == NO_REQUEST || current == null) {
+            return;
+        }
+        if (request == REQUEST_STOP) {
+            stop(current);
+        } else {
+            start(current, request == REQUEST_BACKGROUND);
+        }
+    }
+}
@@ -2,20 +2,21 @@ package com.github.reactnativecommunity.location;
 
 import android.Manifest;
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.content.IntentSender;
 import android.content.pm.PackageManager;
 import android.location.Location;
+import android.location.LocationManager;
 import androidx.annotation.NonNull;
 import androidx.core.app.ActivityCompat;
 
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableType;
-import com.facebook.react.bridge.WritableArray;
 import com.google.android.gms.common.api.ResolvableApiException;
+import com.google.android.gms.location.CurrentLocationRequest;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
@@ -24,28 +25,46 @@ import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.LocationSettingsRequest;
 import com.google.android.gms.location.LocationSettingsResponse;
 import com.google.android.gms.location.SettingsClient;
+import com.google.android.gms.tasks.CancellationTokenSource;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
 
 import java.lang.ref.WeakReference;
+import java.util.List;
 
 public class RNPlayServicesLocationProvider implements RNLocationProvider {
     private static final int REQUEST_CHECK_SETTINGS = 1234;
 
+    // The defaults of the location request, restored by passing null
+    private static final long DEFAULT_INTERVAL = 60 * 60 * 1000;
+    private static final float DEFAULT_DISTANCE_FILTER = 0;
+
     private final ReactApplicationContext context;
+    private final RNLocationPipeline pipeline;
     private final FusedLocationProviderClient locationProvider;
     private final SettingsClient locationSettingsClient;
 
+    // Guarded by this, since configure, the location thread and the settings check all use them
     private LocationRequest locationRequest = new LocationRequest();
+    private boolean fastestIntervalSet = false;
     private boolean isUpdatingLocation = false;
 
+    private final RNAdaptiveSampler adaptiveSampler = new RNAdaptiveSampler();
+    private boolean adaptiveSampling = false;
+    private boolean pendingIntentDelivery = false;
+    private boolean registeredPendingIntent = false;
+
+    private int satisfiedPriority = -1;
+    private String satisfiedSettings = null;
+
     private WeakReference<Activity> pendingConfigureActivity = null;
     private ReadableMap pendingConfigureOptions = null;
     private Promise pendingConfigurePromise = null;
 
-    public RNPlayServicesLocationProvider(Activity activity, ReactApplicationContext context) {
+    public RNPlayServicesLocationProvider(Activity activity, ReactApplicationContext context, RNLocationPipeline pipeline) {
         this.context = context;
+        this.pipeline = pipeline;
         if (activity != null) {
             locationProvider = LocationServices.getFusedLocationProviderClient(activity);
             locationSettingsClient = LocationServices.getSettingsClient(activity);
@@ -58,15 +77,30 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
     // Public interface
 
     @Override
-    public void configure(final Activity activity, final ReadableMap options, final Promise promise) {
-        boolean hasChanges = false;
+    public void configure(Activity activity, ReadableMap options, Promise promise) {
+        configure(activity, options, promise, false);
+    }
+
+    /**
+     * Applies the options to a copy of the current request, which only replaces it once the settings
+     * check passed. If force is true the request is registered again even if nothing changed.
+     */
+    private synchronized void configure(final Activity activity, final ReadableMap options, final Promise promise, boolean force) {
+        final LocationRequest request = copyRequest(locationRequest, fastestIntervalSet);
+        final boolean requestFastestIntervalSet = fastestIntervalSet
+                || (options.hasKey("fastestInterval") && options.getType("fastestInterval") == ReadableType.Number);
+        boolean hasChanges = force;
 
         // Distance filter
         if (options.hasKey("distanceFilter")) {
-            if (options.getType("distanceFilter") == ReadableType.Number) {
-                Double distanceFilter = options.getDouble("distanceFilter");
-                locationRequest.setSmallestDisplacement(distanceFilter.floatValue());
-                hasChanges = true;
+            if (options.getType("distanceFilter") == ReadableType.Number || options.getType("distanceFilter") == ReadableType.Null) {
+                float distanceFilter = options.getType("distanceFilter") == ReadableType.Number
+                        ? (float) options.getDouble("distanceFilter")
+                        : DEFAULT_DISTANCE_FILTER;
+                if (distanceFilter != request.getSmallestDisplacement()) {
+                    request.setSmallestDisplacement(distanceFilter);
+                    hasChanges = true;
+                }
             } else {
                 Utils.emitWarning(context, "distanceFilter must be a number", "401");
             }
@@ -79,21 +113,22 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
                 if (desiredAccuracy.hasKey("android")) {
                     if (desiredAccuracy.getType("android") == ReadableType.String) {
                         String desiredAccuracyAndroid = desiredAccuracy.getString("android");
+                        int priority = -1;
                         if (desiredAccuracyAndroid.equals("balancedPowerAccuracy")) {
-                            locationRequest.setPriority(LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY);
-                            hasChanges = true;
+                            priority = LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY;
                         } else if (desiredAccuracyAndroid.equals("highAccuracy")) {
-                            locationRequest.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
-                            hasChanges = true;
+                            priority = LocationRequest.PRIORITY_HIGH_ACCURACY;
                         } else if (desiredAccuracyAndroid.equals("lowPower")) {
-                            locationRequest.setPriority(LocationRequest.PRIORITY_LOW_POWER);
-                            hasChanges = true;
+                            priority = LocationRequest.PRIORITY_LOW_POWER;
                         } else if (desiredAccuracyAndroid.equals("noPower")) {
-                            locationRequest.setPriority(LocationRequest.PRIORITY_NO_POWER);
-                            hasChanges = true;
+                            priority = LocationRequest.PRIORITY_NO_POWER;
                         } else {
                             Utils.emitWarning(context, "desiredAccuracy.android was passed an unknown value: " + desiredAccuracyAndroid, "401");
                         }
+                        if (priority != -1 && priority != request.getPriority()) {
+                            request.setPriority(priority);
+                            hasChanges = true;
+                        }
                     } else {
                         Utils.emitWarning(context, "desiredAccuracy.android must be a string", "401");
                     }
@@ -105,10 +140,14 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
 
         // Interval
         if (options.hasKey("interval")) {
-            if (options.getType("interval") == ReadableType.Number) {
-                Double interval = options.getDouble("interval");
-                locationRequest.setInterval(interval.longValue());
-                hasChanges = true;
+            if (options.getType("interval") == ReadableType.Number || options.getType("interval") == ReadableType.Null) {
+                long interval = options.getType("interval") == ReadableType.Number
+                        ? (long) options.getDouble("interval")
+                        : DEFAULT_INTERVAL;
+                if (interval != request.getInterval()) {
+                    request.setInterval(interval);
+                    hasChanges = true;
+                }
             } else {
                 Utils.emitWarning(context, "interval must be a number", "401");
             }
@@ -117,9 +156,11 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
         // Fastest interval
         if (options.hasKey("fastestInterval")) {
             if (options.getType("fastestInterval") == ReadableType.Number) {
-                Double fastestInterval = options.getDouble("fastestInterval");
-                locationRequest.setFastestInterval(fastestInterval.longValue());
-                hasChanges = true;
+                long fastestInterval = (long) options.getDouble("fastestInterval");
+                if (fastestInterval != request.getFastestInterval()) {
+                    request.setFastestInterval(fastestInterval);
+                    hasChanges = true;
+                }
             } else {
                 Utils.emitWarning(context, "fastestInterval must be a number", "401");
             }
@@ -128,23 +169,70 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
         // Max wait time
         if (options.hasKey("maxWaitTime")) {
             if (options.getType("maxWaitTime") == ReadableType.Number) {
-                Double maxWaitTime = options.getDouble("maxWaitTime");
-                locationRequest.setMaxWaitTime(maxWaitTime.longValue());
-                hasChanges = true;
+                long maxWaitTime = (long) options.getDouble("maxWaitTime");
+                if (maxWaitTime != request.getMaxWaitTime()) {
+                    request.setMaxWaitTime(maxWaitTime);
+                    hasChanges = true;
+                }
             } else {
                 Utils.emitWarning(context, "maxWaitTime must be a number", "401");
             }
         }
 
+        // Adaptive sampling
+        if (options.hasKey("adaptiveSampling")) {
+            if (options.getType("adaptiveSampling") == ReadableType.Boolean) {
+                boolean newAdaptiveSampling = options.getBoolean("adaptiveSampling");
+                if (newAdaptiveSampling != adaptiveSampling) {
+                    adaptiveSampling = newAdaptiveSampling;
+                    adaptiveSampler.reset();
+                    hasChanges = true;
+                }
+            } else {
+                Utils.emitWarning(context, "adaptiveSampling must be a boolean", "401");
+            }
+        }
+
+        // Pending intent delivery
+        if (options.hasKey("pendingIntentDelivery")) {
+            if (options.getType("pendingIntentDelivery") == ReadableType.Boolean) {
+                boolean newPendingIntentDelivery = options.getBoolean("pendingIntentDelivery");
+                if (newPendingIntentDelivery != pendingIntentDelivery) {
+                    pendingIntentDelivery = newPendingIntentDelivery;
+                    hasChanges = true;
+                }
+            } else {
+                Utils.emitWarning(context, "pendingIntentDelivery must be a boolean", "401");
+            }
+        }
+
         // Return early if no changes were made
         if (!hasChanges) {
             promise.resolve(null);
             return;
         }
 
+        // The settings only need checking again if the priority or the system settings changed.
+        // Registering the callback again swaps the request in place, without a gap in updates.
+        final int priority = request.getPriority();
+        final String settings = getSystemSettings();
+        if (priority == satisfiedPriority && settings.equals(satisfiedSettings)) {
+            replaceRequest(request, requestFastestIntervalSet);
+            promise.resolve(null);
+            return;
+        }
+
+        // Reconfigured from the background, such as by the power policy, so there is nobody to ask
+        // to change the settings. The request still runs, with whatever the current settings allow.
+        if (activity == null) {
+            replaceRequest(request, requestFastestIntervalSet);
+            promise.resolve(null);
+            return;
+        }
+
         // Make the request to change the configuration
         LocationSettingsRequest locationSettingsRequest = new LocationSettingsRequest.Builder()
-                .addLocationRequest(locationRequest)
+                .addLocationRequest(request)
                 .build();
 
         // Handle the success case
@@ -152,7 +240,11 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
         task.addOnSuccessListener(new OnSuccessListener<LocationSettingsResponse>() {
             @Override
             public void onSuccess(LocationSettingsResponse locationSettingsResponse) {
-                reSetUpLocationListeners();
+                synchronized (RNPlayServicesLocationProvider.this) {
+                    satisfiedPriority = priority;
+                    satisfiedSettings = settings;
+                    replaceRequest(request, requestFastestIntervalSet);
+                }
                 promise.resolve(null);
             }
         });
@@ -185,17 +277,46 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
     }
 
     @Override
-    public void startUpdatingLocation() {
+    public synchronized void startUpdatingLocation() {
         isUpdatingLocation = true;
         reSetUpLocationListeners();
     }
 
     @Override
-    public void stopUpdatingLocation() {
+    public synchronized void stopUpdatingLocation() {
         isUpdatingLocation = false;
+        adaptiveSampler.reset();
         reSetUpLocationListeners();
     }
 
+    @Override
+    public void getLatestLocation(final long maxAge, final double requiredAccuracy, final long timeout, final Promise promise) {
+        if (!hasLocationPermission()) {
+            promise.reject("403", "Attempted to get the latest location without location permissions");
+            return;
+        }
+
+        // The fused provider usually has a recent enough fix cached already
+        locationProvider.getLastLocation()
+                .addOnSuccessListener(new OnSuccessListener<Location>() {
+                    @Override
+                    public void onSuccess(Location location) {
+                        if (Utils.isLocationAcceptable(location, maxAge, requiredAccuracy)) {
+                            pipeline.recordLocation(location);
+                            promise.resolve(Utils.locationToMap(location));
+                        } else {
+                            getCurrentLocation(maxAge, timeout, promise);
+                        }
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(@NonNull Exception e) {
+                        getCurrentLocation(maxAge, timeout, promise);
+                    }
+                });
+    }
+
     // Callbacks
 
     public void onActivityResult(int requestCode, int resultCode, Intent data) {
@@ -207,8 +328,9 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
                 && pendingConfigureOptions != null
                 && pendingConfigurePromise != null)
         {
-            // If the resolution was ok, try to configure again
-            configure(pendingConfigureActivity.get(), pendingConfigureOptions, pendingConfigurePromise);
+            // If the resolution was ok, try to configure again. The options may match the current
+            // request already, so it is registered again regardless.
+            configure(pendingConfigureActivity.get(), pendingConfigureOptions, pendingConfigurePromise, true);
         } else if (pendingConfigurePromise != null) {
             // If not, we reject the promise
             pendingConfigurePromise.reject("500", "Error configuring react-native-location");
@@ -220,37 +342,147 @@ public class RNPlayServicesLocationProvider implements RNLocationProvider {
         pendingConfigurePromise = null;
     }
 
+    /**
+     * The request which the options given to `configure` resulted in.
+     */
+    protected synchronized LocationRequest getLocationRequest() {
+        return locationRequest;
+    }
+
+    /**
+     * Called with every batch of fixes from the fused provider.
+     */
+    protected void onFusedLocations(List<Location> locations) {
+        pipeline.onLocations(locations);
+    }
+
     // Helper methods
 
+    /**
+     * Copies a request. The fastest interval is only copied if it was set, since otherwise it has to
+     * keep following the interval.
+     */
+    private static LocationRequest copyRequest(LocationRequest source, boolean copyFastestInterval) {
+        LocationRequest request = new LocationRequest();
+        request.setPriority(source.getPriority());
+        request.setInterval(source.getInterval());
+        if (copyFastestInterval) {
+            request.setFastestInterval(source.getFastestInterval());
+        }
+        request.setSmallestDisplacement(source.getSmallestDisplacement());
+        request.setMaxWaitTime(source.getMaxWaitTime());
+        return request;
+    }
+
+    private boolean hasLocationPermission() {
+        int finePermission = ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION);
+        int coarsePermission = ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION);
+        return finePermission == PackageManager.PERMISSION_GRANTED || coarsePermission == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Describes the system location settings which the settings check depends on.
+     */
+    private String getSystemSettings() {
+        LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (locationManager == null) {
+            return "";
+        }
+        return locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER) + ":" + locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER);
+    }
+
+    private void getCurrentLocation(long maxAge, long timeout, final Promise promise) {
+        CurrentLocationRequest currentLocationRequest = new CurrentLocationRequest.Builder()
+                .setPriority(getLocationRequest().getPriority())
+                .setMaxUpdateAgeMillis(maxAge)
+                .setDurationMillis(timeout > 0 ? timeout : Long.MAX_VALUE)
+                .build();
+
+        locationProvider.getCurrentLocation(currentLocationRequest, new CancellationTokenSource().getToken())
+                .addOnSuccessListener(new OnSuccessListener<Location>() {
+                    @Override
+                    public void onSuccess(Location location) {
+                        if (location == null) {
+                            promise.resolve(null);
+                            return;
+                        }
+                        pipeline.recordLocation(location);
+                        promise.resolve(Utils.locationToMap(location));
+                    }
+                })
+                .addOnFailureListener(new OnFailureListener() {
+                    @Override
+                    public void onFailure(@NonNull Exception e) {
+                        promise.reject("500", "Error getting the latest location", e);
+                    }
+                });
+    }
+
+    private synchronized void replaceRequest(LocationRequest request, boolean requestFastestIntervalSet) {
+        locationRequest = request;
+        fastestIntervalSet = requestFastestIntervalSet;
+        reSetUpLocationListeners();
+    }
+
+    /**
+     * Registers the listeners for the current request. Only called while holding the lock.
+     */
     private void reSetUpLocationListeners() {
         if (isUpdatingLocation) {
-            int finePermission = ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION);
-            int coarsePermission = ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION);
-            if (finePermission != PackageManager.PERMISSION_GRANTED && coarsePermission != PackageManager.PERMISSION_GRANTED) {
+            if (!hasLocationPermission()) {
                 Utils.emitWarning(context, "Attempted to start updating the location without location permissions", "403");
                 return;
             }
-            locationProvider.requestLocationUpdates(locationRequest, locationCallback, null);
+            if (pendingIntentDelivery) {
+                // The system holds the fixes for up to maxWaitTime and delivers them to the receiver,
+                // even if the process has died in the meantime
+                locationProvider.removeLocationUpdates(locationCallback);
+                locationProvider.requestLocationUpdates(locationRequest, RNLocationUpdatesReceiver.getPendingIntent(context));
+            } else {
+                LocationRequest activeRequest = adaptiveSampling ? adaptiveSampler.adjust(locationRequest) : locationRequest;
+                if (registeredPendingIntent) {
+                    locationProvider.removeLocationUpdates(RNLocationUpdatesReceiver.getPendingIntent(context));
+                }
+                locationProvider.requestLocationUpdates(activeRequest, locationCallback, RNLocationThread.getLooper());
+            }
+            registeredPendingIntent = pendingIntentDelivery;
+            RNLocationMetrics.getInstance().onRegistration();
         } else {
+            // A request made with the pending intent outlives the process which made it, so it is
+            // always removed
             locationProvider.removeLocationUpdates(locationCallback);
+            locationProvider.removeLocationUpdates(RNLocationUpdatesReceiver.getPendingIntent(context));
+            registeredPendingIntent = false;
         }
     }
 
     private LocationCallback locationCallback = new LocationCallback() {
         @Override
         public void onLocationResult(LocationResult locationResult) {
-            if (locationResult == null || !isUpdatingLocation) {
+            if (locationResult == null) {
                 return;
             }
 
-            // Map the locations to maps
-            WritableArray results = Arguments.createArray();
-            for (Location location : locationResult.getLocations()) {
-                results.pushMap(Utils.locationToMap(location));
-            }
+            synchronized (RNPlayServicesLocationProvider.this) {
+                if (!isUpdatingLocation) {
+                    return;
+                }
+
+                // Hand the locations over to be emitted with the next batch
+                List<Location> locations = locationResult.getLocations();
+                onFusedLocations(locations);
 
-            // Emit the event
-            Utils.emitEvent(context, "locationUpdated", results);
+                // Swap to the request which suits how the device is moving now
+                if (adaptiveSampling) {
+                    boolean stateChanged = false;
+                    for (int i = 0; i < locations.size(); i++) {
+                        stateChanged |= adaptiveSampler.onLocation(locations.get(i));
+                    }
+                    if (stateChanged) {
+                        reSetUpLocationListeners();
+                    }
+                }
+            }
         }
     };
 
@@ -0,0 +1,316 @@
+package com.github.reactnativecommunity.location;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Steps the location request down as the battery runs low, following the ladder of steps given as
+ * `powerPolicy`. The first step whose conditions all hold for the current battery level, charging
+ * state, battery saver and Doze state is applied on top of the configured options, which come back
+ * once no step applies, and each change of step is emitted as a `powerPolicyChanged` event so it
+ * can be correlated with the track.
+ */
+public class RNPowerGovernor {
+    private static final String[] ACCURACIES = { "noPower", "lowPower", "balancedPowerAccuracy", "highAccuracy" };
+    private static final int NO_STEP = -1;
+    private static final int UNKNOWN_STEP = -2;
+
+    public interface Listener {
+        /**
+         * Called when the battery or power state makes a different step apply, with the location
+         * options of that step, or null when none does.
+         */
+        void onPowerStepChanged(@Nullable ReadableMap options);
+    }
+
+    private final ReactApplicationContext context;
+    private final Listener listener;
+    private List<Step> steps = new ArrayList<>();
+    private boolean watching = false;
+    private int currentStep = NO_STEP;
+
+    private int batteryLevel = 100;
+    private boolean charging = false;
+    private boolean powerSaveMode = false;
+    private boolean deviceIdle = false;
+
+    public RNPowerGovernor(ReactApplicationContext context, Listener listener) {
+        this.context = context;
+        this.listener = listener;
+    }
+
+    /**
+     * Reads the policy from the options and picks the step which applies. Rather than being passed
+     * to the listener, the step's options are returned, or null when no step applies, so the caller
+     * can configure the provider once with them.
+     */
+    @Nullable
+    public ReadableMap configure(ReadableMap options) {
+        synchronized (this) {
+            if (options.hasKey("powerPolicy")) {
+                if (options.getType("powerPolicy") == ReadableType.Array) {
+                    steps = Step.fromReactArray(context, options.getArray("powerPolicy"));
+                } else if (options.getType("powerPolicy") == ReadableType.Null) {
+                    steps = new ArrayList<>();
+                } else {
+                    Utils.emitWarning(context, "powerPolicy must be an array", "401");
+                }
+            }
+
+            if (steps.isEmpty()) {
+                stopWatching();
+                currentStep = NO_STEP;
+                return null;
+            }
+            startWatching();
+            currentStep = UNKNOWN_STEP;
+        }
+        evaluate("configure");
+        return getStepOptions();
+    }
+
+    public synchronized void stop() {
+        stopWatching();
+        currentStep = NO_STEP;
+    }
+
+    // Helpers
+
+    private void startWatching() {
+        if (watching) {
+            return;
+        }
+
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(Intent.ACTION_POWER_CONNECTED);
+        filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            filter.addAction(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+        }
+
+        // The battery broadcast is sticky, so this also gives the current state
+        Intent battery = context.registerReceiver(receiver, filter, null, RNLocationThread.getHandler());
+        if (battery != null) {
+            readBattery(battery);
+        }
+        readPowerManager();
+        watching = true;
+    }
+
+    private void stopWatching() {
+        if (!watching) {
+            return;
+        }
+        try {
+            context.unregisterReceiver(receiver);
+        } catch (IllegalArgumentException e) {
+            // Already unregistered
+        }
+        watching = false;
+    }
+
+    private void readBattery(Intent battery) {
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if (level >= 0 && scale > 0) {
+            batteryLevel = level * 100 / scale;
+        }
+        int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        charging = status == BatteryManager.BATTERY_STATUS_CHARGING
+                || status == BatteryManager.BATTERY_STATUS_FULL
+                || battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+    private void readPowerManager() {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (powerManager == null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            powerSaveMode = powerManager.isPowerSaveMode();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            deviceIdle = powerManager.isDeviceIdleMode();
+        }
+    }
+
+    @Nullable
+    private synchronized ReadableMap getStepOptions() {
+        return currentStep >= 0 ? steps.get(currentStep).toOptions() : null;
+    }
+
+    /**
+     * Picks the step which applies, and returns whether it changed.
+     */
+    private boolean evaluate(String reason) {
+        WritableMap event;
+        synchronized (this) {
+            int index = NO_STEP;
+            for (int i = 0; i < steps.size(); i++) {
+                if (steps.get(i).matches(batteryLevel, charging, powerSaveMode, deviceIdle)) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == currentStep) {
+                return false;
+            }
+
+            currentStep = index;
+            event = Arguments.createMap();
+            event.putInt("step", index);
+            event.putString("reason", reason);
+            event.putInt("batteryLevel", batteryLevel);
+            event.putBoolean("charging", charging);
+            event.putBoolean("powerSaveMode", powerSaveMode);
+            event.putBoolean("deviceIdle", deviceIdle);
+            event.putDouble("timestamp", System.currentTimeMillis());
+        }
+
+        if (context.hasActiveCatalystInstance()) {
+            Utils.emitEvent(context, "powerPolicyChanged", event);
+        }
+        return true;
+    }
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context receiverContext, Intent intent) {
+            String action = intent.getAction();
+            synchronized (RNPowerGovernor.this) {
+                if (!watching) {
+                    return;
+                }
+                if (Intent.ACTION_BATTERY_CHANGED.equals(action)) {
+                    readBattery(intent);
+                } else if (Intent.ACTION_POWER_CONNECTED.equals(action)) {
+                    charging = true;
+                } else if (Intent.ACTION_POWER_DISCONNECTED.equals(action)) {
+                    charging = false;
+                } else {
+                    readPowerManager();
+                }
+            }
+            if (evaluate(action)) {
+                listener.onPowerStepChanged(getStepOptions());
+            }
+        }
+    };
+
+    private static class Step {
+        // Conditions, null when the step does not depend on them
+        private int minBatteryLevel = 0;
+        private @Nullable Boolean charging = null;
+        private @Nullable Boolean powerSaveMode = null;
+        private @Nullable Boolean deviceIdle = null;
+
+        // Location options, -1 when the step does not change them
+        private long interval = -1;
+        private long fastestInterval = -1;
+        private float distanceFilter = -1;
+        private int accuracy = -1;
+
+        private boolean matches(int batteryLevel, boolean charging, boolean powerSaveMode, boolean deviceIdle) {
+            return batteryLevel >= minBatteryLevel
+                    && (this.charging == null || this.charging == charging)
+                    && (this.powerSaveMode == null || this.powerSaveMode == powerSaveMode)
+                    && (this.deviceIdle == null || this.deviceIdle == deviceIdle);
+        }
+
+        private WritableMap toOptions() {
+            WritableMap options = Arguments.createMap();
+            if (interval >= 0) {
+                options.putDouble("interval", interval);
+            }
+            if (fastestInterval >= 0) {
+                options.putDouble("fastestInterval", fastestInterval);
+            }
+            if (distanceFilter >= 0) {
+                options.putDouble("distanceFilter", distanceFilter);
+            }
+            if (accuracy >= 0) {
+                WritableMap desiredAccuracy = Arguments.createMap();
+                desiredAccuracy.putString("android", ACCURACIES[accuracy]);
+                options.putMap("desiredAccuracy", desiredAccuracy);
+            }
+            return options;
+        }
+
+        private static List<Step> fromReactArray(ReactApplicationContext context, ReadableArray array) {
+            List<Step> steps = new ArrayList<>();
+            for (int i = 0; i < array.size(); i++) {
+                if (array.getType(i) != ReadableType.Map) {
+                    Utils.emitWarning(context, "powerPolicy must only contain objects", "401");
+                    continue;
+                }
+                steps.add(fromReactMap(context, array.getMap(i)));
+            }
+            return steps;
+        }
+
+        private static Step fromReactMap(ReactApplicationContext context, ReadableMap map) {
+            Step step = new Step();
+
+            // Conditions
+            if (map.hasKey("minBatteryLevel") && map.getType("minBatteryLevel") == ReadableType.Number) {
+                step.minBatteryLevel = (int) map.getDouble("minBatteryLevel");
+            }
+            if (map.hasKey("charging") && map.getType("charging") == ReadableType.Boolean) {
+                step.charging = map.getBoolean("charging");
+            }
+            if (map.hasKey("powerSaveMode") && map.getType("powerSaveMode") == ReadableType.Boolean) {
+                step.powerSaveMode = map.getBoolean("powerSaveMode");
+            }
+            if (map.hasKey("deviceIdle") && map.getType("deviceIdle") == ReadableType.Boolean) {
+                step.deviceIdle = map.getBoolean("deviceIdle");
+            }
+
+            // Location options
+            if (map.hasKey("interval") && map.getType("interval") == ReadableType.Number) {
+                step.interval = Math.max(0, (long) map.getDouble("interval"));
+            }
+            if (map.hasKey("fastestInterval") && map.getType("fastestInterval") == ReadableType.Number) {
+                step.fastestInterval = Math.max(0, (long) map.getDouble("fastestInterval"));
+            }
+            if (map.hasKey("distanceFilter") && map.getType("distanceFilter") == ReadableType.Number) {
+                step.distanceFilter = Math.max(0, (float) map.getDouble("distanceFilter"));
+            }
+            if (map.hasKey("desiredAccuracy") && map.getType("desiredAccuracy") == ReadableType.Map) {
+                ReadableMap desiredAccuracy = map.getMap("desiredAccuracy");
+                if (desiredAccuracy.hasKey("android") && desiredAccuracy.getType("android") == ReadableType.String) {
+                    String desiredAccuracyAndroid = desiredAccuracy.getString("android");
+                    for (int i = 0; i < ACCURACIES.length; i++) {
+                        if (ACCURACIES[i].equals(desiredAccuracyAndroid)) {
+                            step.accuracy = i;
+                        }
+                    }
+                    if (step.accuracy < 0) {
+                        Utils.emitWarning(context, "desiredAccuracy.android was passed an unknown value: " + desiredAccuracyAndroid, "401");
+                    }
+                }
+            }
+
+            return step;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.reactnativecommunity.location;
+
+import android.app.Activity;
+import android.location.Location;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replays fixes recorded in a GPX, CSV or location journal file, set with `replayFile`, instead of
+ * using the device's location. The time between fixes is divided by `replaySpeed`, so a recorded
+ * drive can be streamed through the pipeline at tens of fixes per second. Replayed fixes are
+ * stamped as if they had just been received, from the time the replay started plus their recorded
+ * offset divided by the speed, so they keep their spacing and their times always increase.
+ */
+public class RNReplayLocationProvider implements RNLocationProvider {
+    public static final String NAME = "replay";
+
+    private final ReactApplicationContext context;
+    private final RNLocationPipeline pipeline;
+    private final Handler handler = RNLocationThread.getHandler();
+    private final List<Location> due = new ArrayList<>();
+
+    private @Nullable String fileName = null;
+    private List<Location> trace = Collections.emptyList();
+    private double speed = 1;
+    private boolean loop = false;
+
+    private boolean running = false;
+    private int index = 0;
+    private double position = 0;
+    private long lastTick = 0;
+    private long replayStartTime = 0;
+    private long lastReplayedTime = 0;
+
+    public RNReplayLocationProvider(ReactApplicationContext context, RNLocationPipeline pipeline) {
+        this.context = context;
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public synchronized void configure(Activity activity, ReadableMap options, Promise promise) {
+        // Speed
+        if (options.hasKey("replaySpeed")) {
+            if (options.getType("replaySpeed") == ReadableType.Number && options.getDouble("replaySpeed") > 0) {
+                speed = options.getDouble("replaySpeed");
+                anchorReplayTime();
+            } else {
+                Utils.emitWarning(context, "replaySpeed must be a positive number", "401");
+            }
+        }
+
+        // Loop
+        if (options.hasKey("replayLoop")) {
+            if (options.getType("replayLoop") == ReadableType.Boolean) {
+                loop = options.getBoolean("replayLoop");
+            } else {
+                Utils.emitWarning(context, "replayLoop must be a boolean", "401");
+            }
+        }
+
+        // File
+        if (options.hasKey("replayFile")) {
+            if (options.getType("replayFile") == ReadableType.String) {
+                String newFileName = options.getString("replayFile");
+                if (!newFileName.equals(fileName)) {
+                    fileName = newFileName;
+                    load(newFileName);
+                }
+            } else {
+                Utils.emitWarning(context, "replayFile must be a string", "401");
+            }
+        }
+
+        promise.resolve(null);
+    }
+
+    @Override
+    public synchronized void startUpdatingLocation() {
+        if (running) {
+            return;
+        }
+        running = true;
+        lastTick = SystemClock.elapsedRealtime();
+        anchorReplayTime();
+        handler.post(tick);
+    }
+
+    @Override
+    public synchronized void stopUpdatingLocation() {
+        running = false;
+        handler.removeCallbacks(tick);
+    }
+
+    @Override
+    public void getLatestLocation(long maxAge, double requiredAccuracy, long timeout, Promise promise) {
+        Location location = pipeline.getLastLocation();
+        promise.resolve(Utils.isLocationAcceptable(location, maxAge, requiredAccuracy) ? Utils.locationToMap(location) : null);
+    }
+
+    // Helpers
+
+    private void load(String name) {
+        File file = new File(name);
+        if (!file.isAbsolute()) {
+            file = new File(context.getFilesDir(), name);
+        }
+
+        try {
+            trace = RNLocationTrace.read(file);
+        } catch (IOException e) {
+            trace = Collections.emptyList();
+            Utils.emitWarning(context, "Unable to read the replay file. Detail: " + e.getLocalizedMessage(), "500");
+        }
+
+        // Start again from the beginning of the new trace
+        index = 0;
+        position = 0;
+        anchorReplayTime();
+        if (running) {
+            handler.removeCallbacks(tick);
+            lastTick = SystemClock.elapsedRealtime();
+            handler.post(tick);
+        }
+    }
+
+    /**
+     * Maps the current position in the trace to the current time.
+     */
+    private void anchorReplayTime() {
+        replayStartTime = System.currentTimeMillis() - (long) (position / speed);
+    }
+
+    private Location replay(Location recorded, long traceStart) {
+        // The filter drops fixes which are not newer than the last one, so times must increase
+        long time = replayStartTime + (long) ((recorded.getTime() - traceStart) / speed);
+        time = Math.max(time, lastReplayedTime + 1);
+        lastReplayedTime = time;
+
+        Location location = new Location(recorded);
+        location.setTime(time);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            location.setElapsedRealtimeNanos(SystemClock.elapsedRealtimeNanos() - (System.currentTimeMillis() - time) * 1000000);
+        }
+        return location;
+    }
+
+    private final Runnable tick = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (RNReplayLocationProvider.this) {
+                if (!running || trace.isEmpty()) {
+                    return;
+                }
+
+                // Advance through the trace by the elapsed time, scaled by the speed
+                long now = SystemClock.elapsedRealtime();
+                position += (now - lastTick) * speed;
+                lastTick = now;
+
+                long traceStart = trace.get(0).getTime();
+                while (index < trace.size() && trace.get(index).getTime() - traceStart <= position) {
+                    due.add(replay(trace.get(index), traceStart));
+                    index++;
+                }
+                if (due.size() == 1) {
+                    pipeline.onLocation(due.get(0));
+                } else if (!due.isEmpty()) {
+                    pipeline.onLocations(new ArrayList<>(due));
+                }
+                due.clear();
+
+                if (index >= trace.size()) {
+                    if (!loop) {
+                        return;
+                    }
+                    index = 0;
+                    position = 0;
+                    anchorReplayTime();
+                }
+
+                double remaining = (trace.get(index).getTime() - traceStart - position) / speed;
+                handler.postDelayed(this, Math.max(1, (long) Math.ceil(remaining)));
+            }
+        }
+    };
+}
@@ -0,0 +1,394 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Address;
+import android.location.Geocoder;
+import android.os.Build;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reverse geocodes with the platform `Geocoder` on its own thread, since the lookups block on the
+ * network. Results are kept in an LRU cache keyed by the geohash of the point, so every point in
+ * the same cell (about 150 meters across at the default precision of 7) shares one lookup, and
+ * concurrent lookups for the same cell wait for a single request. With `geocodeCachePersistent`
+ * the cache is also written to disk, so it survives restarts of the app.
+ */
+public class RNReverseGeocoder {
+    private static final String GEOHASH_ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final String CACHE_FILE_NAME = "rnlocation-geocode-cache.json";
+    private static final int DEFAULT_PRECISION = 7;
+    private static final int DEFAULT_CACHE_SIZE = 256;
+    private static final int MAX_PRECISION = 12;
+
+    private final ReactApplicationContext context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<String, List<Promise>> inFlight = new HashMap<>();
+
+    private LruCache<String, Place> cache = new LruCache<>(DEFAULT_CACHE_SIZE);
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private int precision = DEFAULT_PRECISION;
+    private boolean persistent = false;
+    private boolean loaded = false;
+
+    public RNReverseGeocoder(ReactApplicationContext context) {
+        this.context = context;
+    }
+
+    public synchronized void configure(ReadableMap options) {
+        // Precision
+        if (options.hasKey("geocodeCachePrecision")) {
+            if (options.getType("geocodeCachePrecision") == ReadableType.Number) {
+                precision = clampPrecision((int) options.getDouble("geocodeCachePrecision"));
+            } else {
+                Utils.emitWarning(context, "geocodeCachePrecision must be a number", "401");
+            }
+        }
+
+        // Cache size
+        if (options.hasKey("geocodeCacheSize")) {
+            if (options.getType("geocodeCacheSize") == ReadableType.Number) {
+                int newCacheSize = Math.max(1, (int) options.getDouble("geocodeCacheSize"));
+                if (newCacheSize != cacheSize) {
+                    // Keep the most recently used entries which still fit
+                    LruCache<String, Place> resized = new LruCache<>(newCacheSize);
+                    for (Map.Entry<String, Place> entry : cache.snapshot().entrySet()) {
+                        resized.put(entry.getKey(), entry.getValue());
+                    }
+                    cache = resized;
+                    cacheSize = newCacheSize;
+                }
+            } else {
+                Utils.emitWarning(context, "geocodeCacheSize must be a number", "401");
+            }
+        }
+
+        // Persistence
+        if (options.hasKey("geocodeCachePersistent")) {
+            if (options.getType("geocodeCachePersistent") == ReadableType.Boolean) {
+                persistent = options.getBoolean("geocodeCachePersistent");
+                if (!persistent) {
+                    new File(context.getFilesDir(), CACHE_FILE_NAME).delete();
+                }
+            } else {
+                Utils.emitWarning(context, "geocodeCachePersistent must be a boolean", "401");
+            }
+        }
+    }
+
+    public void reverseGeocode(final double latitude, final double longitude, ReadableMap options, Promise promise) {
+        if (!Geocoder.isPresent()) {
+            promise.reject("503", "There is no geocoder available.");
+            return;
+        }
+
+        // Options
+        final Locale locale = options.hasKey("locale") && options.getType("locale") == ReadableType.String
+                ? forLanguageTag(options.getString("locale"))
+                : Locale.getDefault();
+        final String key;
+        synchronized (this) {
+            int keyPrecision = options.hasKey("precision") && options.getType("precision") == ReadableType.Number
+                    ? clampPrecision((int) options.getDouble("precision"))
+                    : precision;
+            key = locale.toString() + ":" + geohash(latitude, longitude, keyPrecision);
+
+            // Nearby points resolve from memory, or wait for the lookup already running
+            if (persistent && !loaded) {
+                load();
+            }
+            Place cached = cache.get(key);
+            if (cached != null) {
+                promise.resolve(cached.toMap());
+                return;
+            }
+            List<Promise> waiting = inFlight.get(key);
+            if (waiting != null) {
+                waiting.add(promise);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(promise);
+            inFlight.put(key, waiting);
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+                    lookUp(key, latitude, longitude, locale);
+                } else {
+                    lookUpBlocking(key, latitude, longitude, locale);
+                }
+            }
+        });
+    }
+
+    public synchronized void clearCache() {
+        cache.evictAll();
+        new File(context.getFilesDir(), CACHE_FILE_NAME).delete();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Helpers
+
+    private void lookUp(final String key, double latitude, double longitude, Locale locale) {
+        try {
+            new Geocoder(context, locale).getFromLocation(latitude, longitude, 1, new Geocoder.GeocodeListener() {
+                @Override
+                public void onGeocode(List<Address> addresses) {
+                    complete(key, !addresses.isEmpty() ? Place.fromAddress(addresses.get(0)) : null, null);
+                }
+
+                @Override
+                public void onError(@Nullable String errorMessage) {
+                    complete(key, null, new IOException(errorMessage));
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            complete(key, null, new IOException(e.getMessage()));
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void lookUpBlocking(String key, double latitude, double longitude, Locale locale) {
+        Place place = null;
+        IOException error = null;
+        try {
+            List<Address> addresses = new Geocoder(context, locale).getFromLocation(latitude, longitude, 1);
+            if (addresses != null && !addresses.isEmpty()) {
+                place = Place.fromAddress(addresses.get(0));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            error = e instanceof IOException ? (IOException) e : new IOException(e.getMessage());
+        }
+        complete(key, place, error);
+    }
+
+    /**
+     * Caches the result of a lookup and settles every promise waiting for it.
+     */
+    private void complete(String key, @Nullable Place place, @Nullable IOException error) {
+        List<Promise> waiting;
+        Map<String, Place> entries = null;
+        synchronized (this) {
+            waiting = inFlight.remove(key);
+            if (place != null) {
+                cache.put(key, place);
+                if (persistent) {
+                    entries = cache.snapshot();
+                }
+            }
+        }
+        if (entries != null) {
+            save(entries);
+        }
+        if (waiting == null) {
+            return;
+        }
+        for (Promise promise : waiting) {
+            if (error != null) {
+                promise.reject("500", "Error reverse geocoding the location", error);
+            } else {
+                promise.resolve(place != null ? place.toMap() : null);
+            }
+        }
+    }
+
+    private static int clampPrecision(int precision) {
+        return Math.max(1, Math.min(MAX_PRECISION, precision));
+    }
+
+    private static Locale forLanguageTag(String tag) {
+        String[] parts = tag.split("[-_]");
+        return parts.length > 1 ? new Locale(parts[0], parts[1]) : new Locale(parts[0]);
+    }
+
+    static String geohash(double latitude, double longitude, int precision) {
+        double minLatitude = -90, maxLatitude = 90;
+        double minLongitude = -180, maxLongitude = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            // Bits alternate between longitude and latitude, starting with longitude
+            if (evenBit) {
+                double middle = (minLongitude + maxLongitude) / 2;
+                if (longitude >= middle) {
+                    index = index * 2 + 1;
+                    minLongitude = middle;
+                } else {
+                    index = index * 2;
+                    maxLongitude = middle;
+                }
+            } else {
+                double middle = (minLatitude + maxLatitude) / 2;
+                if (latitude >= middle) {
+                    index = index * 2 + 1;
+                    minLatitude = middle;
+                } else {
+                    index = index * 2;
+                    maxLatitude = middle;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(GEOHASH_ALPHABET.charAt(index));
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    private void load() {
+        loaded = true;
+        File file = new File(context.getFilesDir(), CACHE_FILE_NAME);
+        if (!file.exists()) {
+            return;
+        }
+
+        try {
+            InputStream input = new FileInputStream(file);
+            byte[] bytes;
+            try {
+                bytes = new byte[(int) file.length()];
+                int read = 0;
+                while (read < bytes.length) {
+                    int count = input.read(bytes, read, bytes.length - read);
+                    if (count < 0) {
+                        break;
+                    }
+                    read += count;
+                }
+            } finally {
+                input.close();
+            }
+
+            // Entries are stored from the least to the most recently used
+            JSONArray entries = new JSONArray(new String(bytes, Charset.forName("UTF-8")));
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                cache.put(entry.getString("key"), Place.fromJson(entry.getJSONObject("place")));
+            }
+        } catch (IOException | JSONException e) {
+            file.delete();
+        }
+    }
+
+    private void save(Map<String, Place> snapshot) {
+        try {
+            JSONArray entries = new JSONArray();
+            for (Map.Entry<String, Place> entry : snapshot.entrySet()) {
+                JSONObject json = new JSONObject();
+                json.put("key", entry.getKey());
+                json.put("place", entry.getValue().toJson());
+                entries.put(json);
+            }
+
+            OutputStream output = new FileOutputStream(new File(context.getFilesDir(), CACHE_FILE_NAME));
+            try {
+                output.write(entries.toString().getBytes(Charset.forName("UTF-8")));
+            } finally {
+                output.close();
+            }
+        } catch (IOException | JSONException e) {
+            // The memory cache still works, it only starts empty next time
+        }
+    }
+
+    private static class Place {
+        private static final String[] FIELDS = {
+                "formattedAddress", "name", "street", "streetNumber", "postalCode", "subLocality",
+                "locality", "subAdminArea", "adminArea", "country", "countryCode"
+        };
+
+        private final String[] values = new String[FIELDS.length];
+
+        private static Place fromAddress(Address address) {
+            StringBuilder formattedAddress = new StringBuilder();
+            for (int i = 0; i <= address.getMaxAddressLineIndex(); i++) {
+                if (formattedAddress.length() > 0) {
+                    formattedAddress.append(", ");
+                }
+                formattedAddress.append(address.getAddressLine(i));
+            }
+
+            Place place = new Place();
+            place.values[0] = formattedAddress.length() > 0 ? formattedAddress.toString() : null;
+            place.values[1] = address.getFeatureName();
+            place.values[2] = address.getThoroughfare();
+            place.values[3] = address.getSubThoroughfare();
+            place.values[4] = address.getPostalCode();
+            place.values[5] = address.getSubLocality();
+            place.values[6] = address.getLocality();
+            place.values[7] = address.getSubAdminArea();
+            place.values[8] = address.getAdminArea();
+            place.values[9] = address.getCountryName();
+            place.values[10] = address.getCountryCode();
+            return place;
+        }
+
+        private static Place fromJson(JSONObject json) {
+            Place place = new Place();
+            for (int i = 0; i < FIELDS.length; i++) {
+                place.values[i] = json.isNull(FIELDS[i]) ? null : json.optString(FIELDS[i], null);
+            }
+            return place;
+        }
+
+        private JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (values[i] != null) {
+                    json.put(FIELDS[i], values[i]);
+                }
+            }
+            return json;
+        }
+
+        // A new map every time, since a map which was sent to JS cannot be sent again
+        private WritableMap toMap() {
+            WritableMap map = Arguments.createMap();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (values[i] != null) {
+                    map.putString(FIELDS[i], values[i]);
+                } else {
+                    map.putNull(FIELDS[i]);
+                }
+            }
+            return map;
+        }
+    }
+}
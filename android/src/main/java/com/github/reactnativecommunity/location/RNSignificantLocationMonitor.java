@@ -0,0 +1,176 @@
+package com.github.reactnativecommunity.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Bundle;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Emits `significantLocationUpdated` when the device has moved a significant distance, at close to
+ * no cost. With Play Services a passive request is made, so every fix comes from other apps'
+ * requests, unless `significantChangesLowPower` asks for a low power request with a long interval
+ * as well. Without it, the passive provider is used along with an infrequent network provider
+ * request. Fixes are only emitted once they are far
+ * enough from the last emitted one, whichever provider they came from.
+ */
+public class RNSignificantLocationMonitor {
+    private static final float SIGNIFICANT_DISTANCE = 500;
+    private static final long INTERVAL = 15 * 60 * 1000;
+    private static final long FASTEST_INTERVAL = 30 * 1000;
+
+    private final ReactApplicationContext context;
+    private final RNLocationPipeline pipeline;
+    private final float[] distance = new float[1];
+    private @Nullable Location lastEmitted = null;
+    private boolean monitoring = false;
+    private boolean usingFused = false;
+    private boolean lowPower = false;
+
+    public RNSignificantLocationMonitor(ReactApplicationContext context, RNLocationPipeline pipeline) {
+        this.context = context;
+        this.pipeline = pipeline;
+    }
+
+    public synchronized void configure(ReadableMap options) {
+        if (options.hasKey("significantChangesLowPower")) {
+            if (options.getType("significantChangesLowPower") == ReadableType.Boolean) {
+                boolean newLowPower = options.getBoolean("significantChangesLowPower");
+                if (newLowPower != lowPower) {
+                    lowPower = newLowPower;
+                    // Make the request again with the new priority
+                    if (monitoring && usingFused) {
+                        stop();
+                        start();
+                    }
+                }
+            } else {
+                Utils.emitWarning(context, "significantChangesLowPower must be a boolean", "401");
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (monitoring) {
+            return;
+        }
+
+        try {
+            usingFused = Utils.hasFusedLocationProvider();
+            if (usingFused) {
+                LocationRequest request = new LocationRequest();
+                request.setPriority(lowPower ? Priority.PRIORITY_LOW_POWER : Priority.PRIORITY_PASSIVE);
+                request.setInterval(INTERVAL);
+                request.setFastestInterval(FASTEST_INTERVAL);
+                request.setSmallestDisplacement(SIGNIFICANT_DISTANCE);
+                LocationServices.getFusedLocationProviderClient(context)
+                        .requestLocationUpdates(request, locationCallback, RNLocationThread.getLooper());
+            } else {
+                LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+                if (locationManager == null) {
+                    Utils.emitWarning(context, "No location manager is available.", "502");
+                    return;
+                }
+                locationManager.requestLocationUpdates(LocationManager.PASSIVE_PROVIDER, FASTEST_INTERVAL, SIGNIFICANT_DISTANCE, locationListener, RNLocationThread.getLooper());
+                if (locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
+                    locationManager.requestLocationUpdates(LocationManager.NETWORK_PROVIDER, INTERVAL, SIGNIFICANT_DISTANCE, locationListener, RNLocationThread.getLooper());
+                }
+            }
+            monitoring = true;
+        } catch (SecurityException e) {
+            Utils.emitWarning(context, "Attempted to start monitoring significant location changes without location permissions. Detail: " + e.getLocalizedMessage(), "403");
+        }
+    }
+
+    public synchronized void stop() {
+        if (!monitoring) {
+            return;
+        }
+
+        if (usingFused) {
+            LocationServices.getFusedLocationProviderClient(context).removeLocationUpdates(locationCallback);
+        } else {
+            LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+            if (locationManager != null) {
+                locationManager.removeUpdates(locationListener);
+            }
+        }
+        monitoring = false;
+        lastEmitted = null;
+    }
+
+    // Helpers
+
+    private synchronized void onLocations(List<Location> locations) {
+        WritableArray results = null;
+        for (int i = 0; i < locations.size(); i++) {
+            Location location = locations.get(i);
+            pipeline.recordLocation(location);
+            if (!isSignificant(location)) {
+                continue;
+            }
+
+            lastEmitted = location;
+            if (results == null) {
+                results = Arguments.createArray();
+            }
+            results.pushMap(Utils.locationToMap(location));
+        }
+
+        if (results != null && monitoring && context.hasActiveCatalystInstance()) {
+            Utils.emitEvent(context, "significantLocationUpdated", results);
+        }
+    }
+
+    private boolean isSignificant(Location location) {
+        if (lastEmitted == null) {
+            return true;
+        }
+        if (location.getTime() <= lastEmitted.getTime()) {
+            return false;
+        }
+        Location.distanceBetween(lastEmitted.getLatitude(), lastEmitted.getLongitude(), location.getLatitude(), location.getLongitude(), distance);
+        return distance[0] >= SIGNIFICANT_DISTANCE;
+    }
+
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult locationResult) {
+            if (locationResult != null) {
+                onLocations(locationResult.getLocations());
+            }
+        }
+    };
+
+    private final LocationListener locationListener = new LocationListener() {
+        @Override
+        public void onLocationChanged(Location location) {
+            onLocations(Collections.singletonList(location));
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {}
+
+        @Override
+        public void onProviderEnabled(String provider) {}
+
+        @Override
+        public void onProviderDisabled(String provider) {}
+    };
+}
@@ -1,29 +1,37 @@
 package com.github.reactnativecommunity.location;
 
 import android.app.Activity;
+import android.app.PendingIntent;
 import android.content.Context;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.location.LocationProvider;
+import android.location.LocationRequest;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
 
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableType;
-import com.facebook.react.bridge.WritableArray;
 
 import javax.annotation.Nullable;
 
 public class RNStandardLocationProvider implements RNLocationProvider {
     private final ReactApplicationContext context;
+    private final RNLocationPipeline pipeline;
     private LocationOptions options = new LocationOptions();
     private @Nullable String watchedProvider;
+    private long watchedInterval;
+    private float watchedDistanceFilter;
+    private boolean watchedPendingIntent;
+    private long watchedMaxWaitTime;
 
-    public RNStandardLocationProvider(ReactApplicationContext context) {
+    public RNStandardLocationProvider(ReactApplicationContext context, RNLocationPipeline pipeline) {
         this.context = context;
+        this.pipeline = pipeline;
     }
 
     @Override
@@ -48,9 +56,53 @@ public class RNStandardLocationProvider implements RNLocationProvider {
             return;
         }
         locationManager.removeUpdates(locationListener);
+        // A request made with the pending intent outlives the process which made it
+        locationManager.removeUpdates(RNLocationUpdatesReceiver.getPendingIntent(context));
         watchedProvider = null;
     }
 
+    @Override
+    public void getLatestLocation(long maxAge, double requiredAccuracy, long timeout, final Promise promise) {
+        try {
+            final LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+            if (locationManager == null) {
+                promise.reject("502", "No location manager is available.");
+                return;
+            }
+
+            // Use the newest last known location from any of the providers if it is good enough
+            Location bestLocation = null;
+            String[] providers = { LocationManager.GPS_PROVIDER, LocationManager.NETWORK_PROVIDER, LocationManager.PASSIVE_PROVIDER };
+            for (String provider : providers) {
+                Location location = locationManager.getLastKnownLocation(provider);
+                if (Utils.isLocationAcceptable(location, maxAge, requiredAccuracy)
+                        && (bestLocation == null || location.getTime() > bestLocation.getTime())) {
+                    bestLocation = location;
+                }
+            }
+            if (bestLocation != null) {
+                pipeline.recordLocation(bestLocation);
+                promise.resolve(Utils.locationToMap(bestLocation));
+                return;
+            }
+
+            // Otherwise wait for a single fresh fix
+            String provider = getProvider(locationManager, options.highAccuracy);
+            if (provider == null) {
+                promise.reject("503", "There is no valid location provider available.");
+                return;
+            }
+            final Handler handler = RNLocationThread.getHandler();
+            final SingleUpdateListener listener = new SingleUpdateListener(locationManager, handler, promise);
+            locationManager.requestLocationUpdates(provider, 0, 0, listener, RNLocationThread.getLooper());
+            if (timeout > 0) {
+                handler.postDelayed(listener, timeout);
+            }
+        } catch (SecurityException e) {
+            promise.reject("403", "Attempted to get the latest location without location permissions. Detail: " + e.getLocalizedMessage());
+        }
+    }
+
     // Listener
 
     private final LocationListener locationListener = new LocationListener() {
@@ -77,6 +129,44 @@ public class RNStandardLocationProvider implements RNLocationProvider {
     };
 
 
+    /**
+     * Resolves the promise with the first fix it receives, or with null once it is run as the timeout.
+     */
+    private class SingleUpdateListener implements LocationListener, Runnable {
+        private final LocationManager locationManager;
+        private final Handler handler;
+        private final Promise promise;
+
+        private SingleUpdateListener(LocationManager locationManager, Handler handler, Promise promise) {
+            this.locationManager = locationManager;
+            this.handler = handler;
+            this.promise = promise;
+        }
+
+        @Override
+        public void onLocationChanged(Location location) {
+            handler.removeCallbacks(this);
+            locationManager.removeUpdates(this);
+            pipeline.recordLocation(location);
+            promise.resolve(Utils.locationToMap(location));
+        }
+
+        @Override
+        public void run() {
+            locationManager.removeUpdates(this);
+            promise.resolve(null);
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {}
+
+        @Override
+        public void onProviderEnabled(String provider) {}
+
+        @Override
+        public void onProviderDisabled(String provider) {}
+    }
+
     // Private helpers
     private void setupListening() {
         try {
@@ -90,18 +180,44 @@ public class RNStandardLocationProvider implements RNLocationProvider {
                 Utils.emitWarning(context, "There is no valid location provider available.", "503");
                 return;
             }
-            if (!provider.equals(watchedProvider)) {
-                // Setup the listener
-                locationManager.removeUpdates(locationListener);
-                locationManager.requestLocationUpdates(provider, 1000, options.distanceFilter, locationListener);
+            boolean providerChanged = !provider.equals(watchedProvider);
+            boolean deliveryChanged = options.pendingIntentDelivery != watchedPendingIntent;
+            if (providerChanged || deliveryChanged || options.interval != watchedInterval
+                    || options.distanceFilter != watchedDistanceFilter || options.maxWaitTime != watchedMaxWaitTime) {
+                // Setup the listener. Registering it again for the same provider replaces its
+                // request, so there is no gap in updates.
+                PendingIntent pendingIntent = RNLocationUpdatesReceiver.getPendingIntent(context);
+                if (providerChanged || deliveryChanged) {
+                    locationManager.removeUpdates(locationListener);
+                    locationManager.removeUpdates(pendingIntent);
+                }
+                if (!options.pendingIntentDelivery) {
+                    locationManager.requestLocationUpdates(provider, options.interval, options.distanceFilter, locationListener, RNLocationThread.getLooper());
+                } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                    // Lets the GNSS chip hold fixes in its own batch for up to maxWaitTime
+                    LocationRequest request = new LocationRequest.Builder(options.interval)
+                            .setMinUpdateDistanceMeters(options.distanceFilter)
+                            .setMaxUpdateDelayMillis(options.maxWaitTime)
+                            .build();
+                    locationManager.requestLocationUpdates(provider, request, pendingIntent);
+                } else {
+                    locationManager.requestLocationUpdates(provider, options.interval, options.distanceFilter, pendingIntent);
+                }
+                RNLocationMetrics.getInstance().onRegistration();
 
                 // Get the last known location
-                Location lastLocation = locationManager.getLastKnownLocation(provider);
-                if (lastLocation != null) {
-                    processLocation(lastLocation);
+                if (providerChanged) {
+                    Location lastLocation = locationManager.getLastKnownLocation(provider);
+                    if (lastLocation != null) {
+                        processLocation(lastLocation);
+                    }
                 }
             }
             watchedProvider = provider;
+            watchedInterval = options.interval;
+            watchedDistanceFilter = options.distanceFilter;
+            watchedPendingIntent = options.pendingIntentDelivery;
+            watchedMaxWaitTime = options.maxWaitTime;
         } catch (SecurityException e) {
             Utils.emitWarning(context, "Attempted to start updating the location without location permissions. Detail: " + e.getLocalizedMessage(), "403");
         }
@@ -123,28 +239,34 @@ public class RNStandardLocationProvider implements RNLocationProvider {
     }
 
     private void processLocation(Location location) {
-        // Convert the location to a map and wrap it in an array
-        WritableArray results = Arguments.createArray();
-        results.pushMap(Utils.locationToMap(location));
-
-        // Emit the event
-        Utils.emitEvent(context, "locationUpdated", results);
+        // Hand the location over to be emitted with the next batch
+        pipeline.onLocation(location);
     }
 
     private static class LocationOptions {
         private static final float RCT_DEFAULT_LOCATION_ACCURACY = 100;
+        private static final long DEFAULT_INTERVAL = 1000;
 
         private final boolean highAccuracy;
+        private final long interval;
         private final float distanceFilter;
+        private final boolean pendingIntentDelivery;
+        private final long maxWaitTime;
 
         private LocationOptions() {
             this.highAccuracy = false;
+            this.interval = DEFAULT_INTERVAL;
             this.distanceFilter = RCT_DEFAULT_LOCATION_ACCURACY;
+            this.pendingIntentDelivery = false;
+            this.maxWaitTime = 0;
         }
 
-        private LocationOptions(boolean highAccuracy, float distanceFilter) {
+        private LocationOptions(boolean highAccuracy, long interval, float distanceFilter, boolean pendingIntentDelivery, long maxWaitTime) {
             this.highAccuracy = highAccuracy;
+            this.interval = interval;
             this.distanceFilter = distanceFilter;
+            this.pendingIntentDelivery = pendingIntentDelivery;
+            this.maxWaitTime = maxWaitTime;
         }
 
         private static LocationOptions fromReactMap(ReactApplicationContext context, ReadableMap map) {
@@ -180,17 +302,47 @@ public class RNStandardLocationProvider implements RNLocationProvider {
                 }
             }
 
+            // Interval
+            long interval = DEFAULT_INTERVAL;
+            if (map.hasKey("interval")) {
+                if (map.getType("interval") == ReadableType.Number) {
+                    interval = Math.max(0, (long) map.getDouble("interval"));
+                } else if (map.getType("interval") != ReadableType.Null) {
+                    Utils.emitWarning(context, "interval must be a number", "401");
+                }
+            }
+
             // Distance filter
             if (map.hasKey("distanceFilter")) {
                 if (map.getType("distanceFilter") == ReadableType.Number) {
                     distanceFilter = (float) map.getDouble("distanceFilter");
 
-                } else {
+                } else if (map.getType("distanceFilter") != ReadableType.Null) {
                     Utils.emitWarning(context, "distanceFilter must be a number", "401");
                 }
             }
 
-            return new LocationOptions(highAccuracy, distanceFilter);
+            // Pending intent delivery
+            boolean pendingIntentDelivery = false;
+            if (map.hasKey("pendingIntentDelivery")) {
+                if (map.getType("pendingIntentDelivery") == ReadableType.Boolean) {
+                    pendingIntentDelivery = map.getBoolean("pendingIntentDelivery");
+                } else {
+                    Utils.emitWarning(context, "pendingIntentDelivery must be a boolean", "401");
+                }
+            }
+
+            // Max wait time
+            long maxWaitTime = 0;
+            if (map.hasKey("maxWaitTime")) {
+                if (map.getType("maxWaitTime") == ReadableType.Number) {
+                    maxWaitTime = Math.max(0, (long) map.getDouble("maxWaitTime"));
+                } else {
+                    Utils.emitWarning(context, "maxWaitTime must be a number", "401");
+                }
+            }
+
+            return new LocationOptions(highAccuracy, interval, distanceFilter, pendingIntentDelivery, maxWaitTime);
         }
     }
 }
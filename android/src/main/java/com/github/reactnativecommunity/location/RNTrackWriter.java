@@ -0,0 +1,87 @@
+package com.github.reactnativecommunity.location;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams fixes to a file in a compact track format, optionally gzipped.
+ *
+ * The file starts with the magic `RNLT`, a version byte and a byte of `FIELD_` flags saying which
+ * optional fields each fix has. Every fix follows as zigzag varints, each the difference from the
+ * same value of the previous fix (or from 0 for the first fix): the timestamp in milliseconds,
+ * the latitude and longitude in 1e-7 degrees, then if present the accuracy in decimeters, the
+ * altitude in decimeters, the speed in centimeters per second and the course in tenths of a
+ * degree. The end of the file ends the track.
+ */
+public class RNTrackWriter {
+    public static final int FIELD_ACCURACY = 1;
+    public static final int FIELD_ALTITUDE = 1 << 1;
+    public static final int FIELD_SPEED = 1 << 2;
+    public static final int FIELD_COURSE = 1 << 3;
+
+    private static final byte[] MAGIC = { 'R', 'N', 'L', 'T' };
+    private static final int VERSION = 1;
+
+    private final OutputStream output;
+    private final int fields;
+
+    private long previousTime = 0;
+    private long previousLatitude = 0;
+    private long previousLongitude = 0;
+    private long previousAccuracy = 0;
+    private long previousAltitude = 0;
+    private long previousSpeed = 0;
+    private long previousCourse = 0;
+
+    public RNTrackWriter(File file, int fields, boolean gzip) throws IOException {
+        OutputStream stream = new FileOutputStream(file);
+        if (gzip) {
+            stream = new GZIPOutputStream(stream, 8192);
+        }
+        this.output = new BufferedOutputStream(stream, 8192);
+        this.fields = fields;
+
+        output.write(MAGIC);
+        output.write(VERSION);
+        output.write(fields);
+    }
+
+    public void write(long time, double latitude, double longitude, float accuracy, double altitude, float speed, float course) throws IOException {
+        previousTime = writeDelta(time, previousTime);
+        previousLatitude = writeDelta(Math.round(latitude * 1e7), previousLatitude);
+        previousLongitude = writeDelta(Math.round(longitude * 1e7), previousLongitude);
+        if ((fields & FIELD_ACCURACY) != 0) {
+            previousAccuracy = writeDelta(Math.round(accuracy * 10.0), previousAccuracy);
+        }
+        if ((fields & FIELD_ALTITUDE) != 0) {
+            previousAltitude = writeDelta(Math.round(altitude * 10.0), previousAltitude);
+        }
+        if ((fields & FIELD_SPEED) != 0) {
+            previousSpeed = writeDelta(Math.round(speed * 100.0), previousSpeed);
+        }
+        if ((fields & FIELD_COURSE) != 0) {
+            previousCourse = writeDelta(Math.round(course * 10.0), previousCourse);
+        }
+    }
+
+    public void close() throws IOException {
+        output.close();
+    }
+
+    // Helpers
+
+    private long writeDelta(long value, long previous) throws IOException {
+        long delta = value - previous;
+        long zigzag = (delta << 1) ^ (delta >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            output.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        output.write((int) zigzag);
+        return value;
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.reactnativecommunity.location;
+
+import android.location.Location;
+import android.os.Handler;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Running statistics of the trip made up by the fixes which pass the filter, kept in constant
+ * memory so JS does not need to hold on to every fix. Distances are haversine distances, and the
+ * device is treated as stationary until it has moved further than the combined horizontal
+ * uncertainty of both fixes, so GPS jitter while standing still adds no distance. Moving time counts
+ * the time between fixes while the reported speed is at least `MIN_MOVING_SPEED`, or for fixes
+ * without a speed, the whole time since the last move when the speed from the positions is.
+ * Elevation only counts once it has changed by more than `ELEVATION_THRESHOLD`, for the same reason.
+ *
+ * The statistics are emitted as a `tripStatsUpdated` event every `tripStatsInterval` milliseconds,
+ * which is off by default.
+ */
+public class RNTripStatistics {
+    private static final double EARTH_RADIUS = 6371000;
+    private static final double MIN_MOVING_SPEED = 0.5;
+    private static final double ELEVATION_THRESHOLD = 3;
+    private static final float DEFAULT_ACCURACY = 10;
+
+    private final ReactApplicationContext context;
+    private final Handler handler = RNLocationThread.getHandler();
+    private long interval = 0;
+
+    private @Nullable Location anchor = null;
+    private long startTime = 0;
+    private long lastTime = 0;
+    private double distance = 0;
+    private long movingTime = 0;
+    private double maxSpeed = 0;
+    private double elevationAnchor = Double.NaN;
+    private double elevationGain = 0;
+    private double elevationLoss = 0;
+    private int fixes = 0;
+
+    public RNTripStatistics(ReactApplicationContext context) {
+        this.context = context;
+    }
+
+    public synchronized void configure(ReadableMap options) {
+        if (options.hasKey("tripStatsInterval")) {
+            if (options.getType("tripStatsInterval") == ReadableType.Number) {
+                interval = Math.max(0, (long) options.getDouble("tripStatsInterval"));
+                handler.removeCallbacks(report);
+                if (interval > 0) {
+                    handler.postDelayed(report, interval);
+                }
+            } else {
+                Utils.emitWarning(context, "tripStatsInterval must be a number", "401");
+            }
+        }
+    }
+
+    public synchronized void stop() {
+        interval = 0;
+        handler.removeCallbacks(report);
+    }
+
+    public synchronized void onLocation(Location location) {
+        long time = location.getTime();
+        if (anchor == null) {
+            anchor = location;
+            startTime = time;
+            lastTime = time;
+            elevationAnchor = location.hasAltitude() ? location.getAltitude() : Double.NaN;
+            fixes = 1;
+            return;
+        }
+        if (time <= lastTime) {
+            return;
+        }
+        fixes++;
+
+        // The device has only moved once it is further from the anchor than both fixes' uncertainty
+        double measured = haversine(anchor, location);
+        boolean moved = measured > Math.hypot(getAccuracy(anchor), getAccuracy(location));
+        long hopTime = time - anchor.getTime();
+        if (moved) {
+            distance += measured;
+            anchor = location;
+        }
+
+        // The Doppler speed reported with the fix is more accurate than the one from positions.
+        // Without it, movement only shows once the anchor moves, so the whole hop counts.
+        if (location.hasSpeed()) {
+            if (location.getSpeed() >= MIN_MOVING_SPEED) {
+                movingTime += time - lastTime;
+                maxSpeed = Math.max(maxSpeed, location.getSpeed());
+            }
+        } else if (moved && measured * 1000 / hopTime >= MIN_MOVING_SPEED) {
+            movingTime += hopTime;
+            maxSpeed = Math.max(maxSpeed, measured * 1000 / hopTime);
+        }
+        lastTime = time;
+
+        // Elevation
+        if (location.hasAltitude()) {
+            double altitude = location.getAltitude();
+            if (Double.isNaN(elevationAnchor)) {
+                elevationAnchor = altitude;
+            } else if (altitude - elevationAnchor > ELEVATION_THRESHOLD) {
+                elevationGain += altitude - elevationAnchor;
+                elevationAnchor = altitude;
+            } else if (elevationAnchor - altitude > ELEVATION_THRESHOLD) {
+                elevationLoss += elevationAnchor - altitude;
+                elevationAnchor = altitude;
+            }
+        }
+    }
+
+    public synchronized void reset() {
+        anchor = null;
+        startTime = 0;
+        lastTime = 0;
+        distance = 0;
+        movingTime = 0;
+        maxSpeed = 0;
+        elevationAnchor = Double.NaN;
+        elevationGain = 0;
+        elevationLoss = 0;
+        fixes = 0;
+    }
+
+    public synchronized WritableMap toMap() {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("distance", distance);
+        map.putDouble("movingTime", movingTime);
+        map.putDouble("elapsedTime", lastTime - startTime);
+        map.putDouble("averageSpeed", movingTime > 0 ? distance * 1000 / movingTime : 0);
+        map.putDouble("maxSpeed", maxSpeed);
+        map.putDouble("elevationGain", elevationGain);
+        map.putDouble("elevationLoss", elevationLoss);
+        map.putDouble("startTime", startTime);
+        map.putInt("fixes", fixes);
+        return map;
+    }
+
+    // Helpers
+
+    private static float getAccuracy(Location location) {
+        return location.hasAccuracy() ? location.getAccuracy() : DEFAULT_ACCURACY;
+    }
+
+    private static double haversine(Location from, Location to) {
+        double latitude1 = Math.toRadians(from.getLatitude());
+        double latitude2 = Math.toRadians(to.getLatitude());
+        double sinLatitude = Math.sin((latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(to.getLongitude() - from.getLongitude()) / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(latitude1) * Math.cos(latitude2) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private final Runnable report = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (RNTripStatistics.this) {
+                if (interval <= 0) {
+                    return;
+                }
+                if (context.hasActiveCatalystInstance()) {
+                    Utils.emitEvent(context, "tripStatsUpdated", toMap());
+                }
+                handler.postDelayed(this, interval);
+            }
+        }
+    };
+}
@@ -2,6 +2,7 @@ package com.github.reactnativecommunity.location;
 
 import android.location.Location;
 import android.os.Build;
+import android.os.SystemClock;
 import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Arguments;
@@ -19,12 +20,15 @@ public class Utils {
     }
 
     public static void emitEvent(ReactApplicationContext context, String eventName, @Nullable Object params) {
+        long start = System.nanoTime();
         context
                 .getJSModule(RCTNativeAppEventEmitter.class)
                 .emit(eventName, params);
+        RNLocationMetrics.getInstance().recordEmit(start);
     }
 
     public static WritableMap locationToMap(Location location) {
+        long start = System.nanoTime();
         WritableMap map = Arguments.createMap();
 
         map.putDouble("latitude", location.getLatitude());
@@ -51,9 +55,31 @@ public class Utils {
         map.putDouble("timestamp", location.getTime());
         map.putBoolean("fromMockProvider", location.isFromMockProvider());
 
+        RNLocationMetrics.getInstance().recordConversion(start);
         return map;
     }
 
+    public static long getLocationAge(Location location) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return (SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos()) / 1000000;
+        } else {
+            return System.currentTimeMillis() - location.getTime();
+        }
+    }
+
+    public static boolean isLocationAcceptable(@Nullable Location location, long maxAge, double requiredAccuracy) {
+        if (location == null) {
+            return false;
+        }
+        if (getLocationAge(location) > maxAge) {
+            return false;
+        }
+        if (requiredAccuracy < Double.MAX_VALUE && (!location.hasAccuracy() || location.getAccuracy() > requiredAccuracy)) {
+            return false;
+        }
+        return true;
+    }
+
     public static boolean hasFusedLocationProvider() {
         try {
             Class.forName("com.google.android.gms.location.FusedLocationProviderClient");
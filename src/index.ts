@@ -6,12 +6,23 @@ import {
   Location,
   Heading,
   RNLocationNativeInterface,
-  GetLatestLocationOptions
+  GetLatestLocationOptions,
+  BackgroundLocationTaskData,
+  Geofence,
+  GeofenceEvent,
+  LocationSubscriptionOptions,
+  LocationMetrics,
+  PackedLocations,
+  TrackExportOptions,
+  TripStats,
+  ReverseGeocodeOptions,
+  Place,
+  PowerPolicyChange
 } from "./types";
 import NativeInterface from "./lib/nativeInterface";
 import Subscriptions from "./lib/subscriptions";
 import Permissions from "./lib/permissions";
-import { EventEmitter } from "react-native";
+import { AppRegistry, EventEmitter, Platform } from "react-native";
 import { promiseTimeoutResolveNull } from "./utils";
 
 let {
@@ -136,19 +147,13 @@ export const subscribeToLocationUpdates = (
 };
 
 /**
- * Get the latest location. Ensure you have the correct permission before calling this method.
- *
- * This will subscribe to location events for you at the unsubscribe when it gets its first valid location. Usually, this method will return very fast with a possibly out of date location, however, in some circumstances it will not return a location. Therefore, this method has a timeout after which the promise will be resovled with `null` value.
+ * Internal method which waits for the first location update.
  *
- * The location provider will respect the settings you have given it, so if you need a location with a certain accuracy, ensure you call `RNLocation.configure` first. If you want *any* location then ensure you call `RNLocation.configure` with no distance filter.
- *
- * @param {GetLatestLocationOptions} options The options to use when getting the location.
- * @returns {Promise<Location | null>} A Promise which will resolve to the latest location, or to `null` if the timeout is reached.
+ * @ignore
+ * @returns {Promise<Location | null>} A Promise which will resolve to the first location received.
  */
-export const getLatestLocation = (
-  options: GetLatestLocationOptions = {}
-): Promise<Location | null> => {
-  const locationPromise = new Promise<Location | null>(resolve => {
+const getLatestLocationFromSubscription = (): Promise<Location | null> => {
+  return new Promise<Location | null>(resolve => {
     const unsubscribe = subscriptions.subscribeToLocationUpdates(locations => {
       if (locations.length === 0) {
         return;
@@ -168,6 +173,25 @@ export const getLatestLocation = (
       resolve(sortedLocations[0]);
     });
   });
+};
+
+/**
+ * Get the latest location. Ensure you have the correct permission before calling this method.
+ *
+ * On iOS this will subscribe to location events for you at the unsubscribe when it gets its first valid location. On Android the last known location is returned straight away if it matches the `maxAge` and `requiredAccuracy` options, and a single fresh location is requested otherwise. Usually, this method will return very fast with a possibly out of date location, however, in some circumstances it will not return a location. Therefore, this method has a timeout after which the promise will be resovled with `null` value.
+ *
+ * The location provider will respect the settings you have given it, so if you need a location with a certain accuracy, ensure you call `RNLocation.configure` first. If you want *any* location then ensure you call `RNLocation.configure` with no distance filter.
+ *
+ * @param {GetLatestLocationOptions} options The options to use when getting the location.
+ * @returns {Promise<Location | null>} A Promise which will resolve to the latest location, or to `null` if the timeout is reached.
+ */
+export const getLatestLocation = (
+  options: GetLatestLocationOptions = {}
+): Promise<Location | null> => {
+  const locationPromise =
+    Platform.OS === "android"
+      ? (nativeInterface.getLatestLocation(options) as Promise<Location | null>)
+      : getLatestLocationFromSubscription();
 
   // The user has explicitly turned off the timeout so return the promise directly
   if (options.timeout === null) {
@@ -179,6 +203,22 @@ export const getLatestLocation = (
   return promiseTimeoutResolveNull(timeout, locationPromise);
 };
 
+/**
+ * Subscribe to location changes with the given listener, using parameters which only apply to this subscription. Ensure you have the correct permission before calling this method.
+ *
+ * On Android the location provider runs with the most demanding parameters of all the active subscriptions, and each listener only receives the locations which match its own `interval` and `distanceFilter`. On iOS this is the same as {@link subscribeToLocationUpdates}.
+ *
+ * @param {LocationSubscriptionOptions} options The parameters for this subscription.
+ * @param {LocationCallback} listener The listener which will be called when the user location changes.
+ * @returns {Subscription} The subscription function which can be used to unsubscribe.
+ */
+export const subscribeToLocationUpdatesWithOptions = (
+  options: LocationSubscriptionOptions,
+  listener: (locations: Location[]) => void
+): Subscription => {
+  return subscriptions.subscribeToLocationUpdatesWithOptions(options, listener);
+};
+
 /**
  * Subscribe to heading changes with the given listener. Ensure you have the correct permission before calling this method. The location provider will respect the settings you have given it.
  *
@@ -207,6 +247,254 @@ export const subscribeToSignificantLocationUpdates = (
   return subscriptions.subscribeToSignificantLocationUpdates(listener);
 };
 
+/**
+ * Register the task which receives batches of locations while the app is in the background. The task is only used after calling `configure` with `backgroundDelivery: "headlessTask"`.
+ *
+ * This must be called from your app's entry file, outside of any component, so the task is available when Android starts your app in the background to run it.
+ *
+ * @platform android
+ * @param {BackgroundLocationTaskCallback} task The task which will be called with each batch of locations.
+ * @returns {void}
+ */
+export const registerBackgroundLocationTask = (
+  task: (data: BackgroundLocationTaskData) => Promise<void>
+): void => {
+  if (Platform.OS !== "android") {
+    return;
+  }
+  AppRegistry.registerHeadlessTask("RNLocationBackgroundTask", () => task);
+};
+
+/**
+ * Read the locations which were written to the on-disk journal. Enable the journal by calling `configure` with `journalEnabled: true`.
+ *
+ * @platform android
+ * @param {number} fromTimestamp Only locations with a timestamp at or after this time are returned.
+ * @param {number} limit The maximum number of locations to return.
+ * @returns {Promise<Location[]>} A Promise which resolves to the journaled locations, oldest first.
+ */
+export const readJournal = (
+  fromTimestamp: number,
+  limit: number
+): Promise<Location[]> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve([]);
+  }
+  return nativeInterface.readJournal(fromTimestamp, limit);
+};
+
+/**
+ * Remove every location from the on-disk journal.
+ *
+ * @platform android
+ * @returns {Promise<void>} A Promise which resolves when the journal has been emptied.
+ */
+export const truncateJournal = (): Promise<void> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve();
+  }
+  return nativeInterface.truncateJournal();
+};
+
+/**
+ * Write the journaled locations between two timestamps to a file in a compact binary track format, without passing them through JS. Each location is stored as zigzag varint deltas of its timestamp in milliseconds, latitude and longitude in 1e-7 degrees, and of the optional fields.
+ *
+ * @platform android
+ * @param {number} fromTimestamp Only locations with a timestamp at or after this time are exported.
+ * @param {number} toTimestamp Only locations with a timestamp at or before this time are exported.
+ * @param {TrackExportOptions} options The fields to export and how to write the file.
+ * @returns {Promise<string | null>} A Promise which resolves to the path of the file, or `null` on other platforms.
+ */
+export const exportTrack = (
+  fromTimestamp: number,
+  toTimestamp: number,
+  options: TrackExportOptions = {}
+): Promise<string | null> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve(null);
+  }
+  return nativeInterface.exportTrack(fromTimestamp, toTimestamp, options);
+};
+
+/**
+ * Start monitoring the given geofences. Ensure you have the correct permission before calling this method.
+ *
+ * While Google Play Services is available, up to 100 geofences are monitored by the system even when location updates are stopped. Any other geofences are only checked against the locations received while you are subscribed to location updates.
+ *
+ * @platform android
+ * @param {Geofence[]} geofences The geofences to monitor.
+ * @returns {Promise<void>} A Promise which resolves when the geofences are being monitored.
+ */
+export const addGeofences = (geofences: Geofence[]): Promise<void> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve();
+  }
+  return nativeInterface.addGeofences(geofences);
+};
+
+/**
+ * Stop monitoring the geofences with the given identifiers.
+ *
+ * @platform android
+ * @param {string[]} ids The identifiers of the geofences to remove.
+ * @returns {Promise<void>} A Promise which resolves when the geofences have been removed.
+ */
+export const removeGeofences = (ids: string[]): Promise<void> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve();
+  }
+  return nativeInterface.removeGeofences(ids);
+};
+
+/**
+ * Subscribe to the transitions of the monitored geofences with the given listener.
+ *
+ * @platform android
+ * @param {GeofenceEventCallback} listener The listener which will be called when a geofence is entered, exited or dwelled in.
+ * @returns {Subscription} The subscription function which can be used to unsubscribe.
+ */
+export const subscribeToGeofenceEvents = (
+  listener: (event: GeofenceEvent) => void
+): Subscription => {
+  return subscriptions.subscribeToGeofenceEvents(listener);
+};
+
+/**
+ * Get the counters and latency histograms collected by the native location code since it was started, or since the last call to `resetMetrics`.
+ *
+ * @platform android
+ * @returns {Promise<LocationMetrics | null>} A Promise which resolves to the metrics, or `null` on other platforms.
+ */
+export const getMetrics = (): Promise<LocationMetrics | null> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve(null);
+  }
+  return nativeInterface.getMetrics();
+};
+
+/**
+ * Reset every counter and histogram in the location metrics.
+ *
+ * @platform android
+ * @returns {Promise<void>} A Promise which resolves when the metrics have been reset.
+ */
+export const resetMetrics = (): Promise<void> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve();
+  }
+  return nativeInterface.resetMetrics();
+};
+
+/**
+ * Subscribe to the location metrics, which are emitted every `metricsInterval` milliseconds once it has been passed to `configure`.
+ *
+ * @platform android
+ * @param {LocationMetricsCallback} listener The listener which will be called with the metrics.
+ * @returns {Subscription} The subscription function which can be used to unsubscribe.
+ */
+export const subscribeToLocationMetrics = (
+  listener: (metrics: LocationMetrics) => void
+): Subscription => {
+  return subscriptions.subscribeToLocationMetrics(listener);
+};
+
+/**
+ * Get the statistics of the trip made up by the locations received since location updates were first started, or since the last call to `resetTripStats`.
+ *
+ * @platform android
+ * @returns {Promise<TripStats | null>} A Promise which resolves to the trip statistics, or `null` on other platforms.
+ */
+export const getTripStats = (): Promise<TripStats | null> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve(null);
+  }
+  return nativeInterface.getTripStats();
+};
+
+/**
+ * Start a new trip, resetting every trip statistic.
+ *
+ * @platform android
+ * @returns {Promise<void>} A Promise which resolves when the trip statistics have been reset.
+ */
+export const resetTripStats = (): Promise<void> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve();
+  }
+  return nativeInterface.resetTripStats();
+};
+
+/**
+ * Subscribe to the trip statistics, which are emitted every `tripStatsInterval` milliseconds once it has been passed to `configure`.
+ *
+ * @platform android
+ * @param {TripStatsCallback} listener The listener which will be called with the trip statistics.
+ * @returns {Subscription} The subscription function which can be used to unsubscribe.
+ */
+export const subscribeToTripStats = (
+  listener: (stats: TripStats) => void
+): Subscription => {
+  return subscriptions.subscribeToTripStats(listener);
+};
+
+/**
+ * Look up the address of a location. Results are cached by the geohash of the location, so nearby locations resolve from memory, and concurrent lookups for the same area share a single request.
+ *
+ * @platform android
+ * @param {number} latitude The latitude of the location.
+ * @param {number} longitude The longitude of the location.
+ * @param {ReverseGeocodeOptions} options The cache precision and locale to use.
+ * @returns {Promise<Place | null>} A Promise which resolves to the address, or `null` if there is none or on other platforms.
+ */
+export const reverseGeocode = (
+  latitude: number,
+  longitude: number,
+  options: ReverseGeocodeOptions = {}
+): Promise<Place | null> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve(null);
+  }
+  return nativeInterface.reverseGeocode(latitude, longitude, options);
+};
+
+/**
+ * Remove every cached reverse geocoding result, from memory and disk.
+ *
+ * @platform android
+ * @returns {Promise<void>} A Promise which resolves when the cache has been cleared.
+ */
+export const clearGeocodeCache = (): Promise<void> => {
+  if (Platform.OS !== "android") {
+    return Promise.resolve();
+  }
+  return nativeInterface.clearGeocodeCache();
+};
+
+/**
+ * Subscribe to the changes of the `powerPolicy` step which applies, as the battery level, charging state, battery saver or Doze state change.
+ *
+ * @platform android
+ * @param {PowerPolicyChangeCallback} listener The listener which will be called with each change of step.
+ * @returns {Subscription} The subscription function which can be used to unsubscribe.
+ */
+export const subscribeToPowerPolicyChanges = (
+  listener: (change: PowerPolicyChange) => void
+): Subscription => {
+  return subscriptions.subscribeToPowerPolicyChanges(listener);
+};
+
+/**
+ * Subscribe to location updates packed into a single array of numbers. With `packedLocations` enabled in `configure`, Android sends the locations in this form without building an object for each of them, which keeps high update rates cheap. Other platforms receive the same form, packed in JS.
+ *
+ * @param {PackedLocationsCallback} listener The listener which will be called with each batch of packed locations.
+ * @returns {Subscription} The subscription function which can be used to unsubscribe.
+ */
+export const subscribeToPackedLocationUpdates = (
+  listener: (locations: PackedLocations) => void
+): Subscription => {
+  return subscriptions.subscribeToPackedLocationUpdates(listener);
+};
+
 export default {
   configure,
   requestPermission,
@@ -214,9 +502,27 @@ export default {
   getCurrentPermission,
   subscribeToPermissionUpdates,
   subscribeToLocationUpdates,
+  subscribeToLocationUpdatesWithOptions,
   getLatestLocation,
   subscribeToHeadingUpdates,
   subscribeToSignificantLocationUpdates,
+  registerBackgroundLocationTask,
+  readJournal,
+  truncateJournal,
+  exportTrack,
+  addGeofences,
+  removeGeofences,
+  subscribeToGeofenceEvents,
+  getMetrics,
+  resetMetrics,
+  subscribeToLocationMetrics,
+  subscribeToPackedLocationUpdates,
+  getTripStats,
+  resetTripStats,
+  subscribeToTripStats,
+  reverseGeocode,
+  clearGeocodeCache,
+  subscribeToPowerPolicyChanges,
   // Internal use only
   _configureHelpers,
   _nativeInterface: nativeInterface,
@@ -234,3 +540,28 @@ export * from "./types";
  * @callback LocationCallback
  * @param {Location} location The new user location.
  */
+/**
+ * @callback BackgroundLocationTaskCallback
+ * @param {BackgroundLocationTaskData} data The batch of locations received in the background.
+ * @returns {Promise<void>} A Promise which resolves once the locations have been handled.
+ */
+/**
+ * @callback GeofenceEventCallback
+ * @param {GeofenceEvent} event The geofence transition.
+ */
+/**
+ * @callback LocationMetricsCallback
+ * @param {LocationMetrics} metrics The current location metrics.
+ */
+/**
+ * @callback PackedLocationsCallback
+ * @param {PackedLocations} locations The batch of packed locations.
+ */
+/**
+ * @callback TripStatsCallback
+ * @param {TripStats} stats The current trip statistics.
+ */
+/**
+ * @callback PowerPolicyChangeCallback
+ * @param {PowerPolicyChange} change The step which now applies and the power state which selected it.
+ */
@@ -1,10 +1,21 @@
-import { EventEmitter } from "react-native";
+import { EventEmitter, Platform } from "react-native";
 import {
   Location,
   Subscription,
   Heading,
+  GeofenceEvent,
+  LocationSubscriptionOptions,
+  LocationMetrics,
+  PackedLocations,
+  TripStats,
+  PowerPolicyChange,
   RNLocationNativeInterface
 } from "../types";
+import {
+  decodePackedLocations,
+  packedLocationStride,
+  packLocations
+} from "../utils";
 
 /**
  * Internal helper class for managing event subscriptions
@@ -16,6 +27,7 @@ export default class Subscriptions {
   private locationListenerCount = 0;
   private headingListenerCount = 0;
   private significantLocationListenerCount = 0;
+  private locationSubscriptionCount = 0;
 
   public constructor(
     nativeInterface: RNLocationNativeInterface,
@@ -45,6 +57,45 @@ export default class Subscriptions {
     };
   }
 
+  public subscribeToPackedLocationUpdates(
+    listener: (locations: PackedLocations) => void
+  ): Subscription {
+    // Android packs the locations natively, other platforms pack them here
+    const emitterSubscription =
+      Platform.OS === "android"
+        ? this.eventEmitter.addListener(
+            "locationUpdatedPacked",
+            (event: { count: number; data: string }) => {
+              listener({
+                count: event.count,
+                stride: packedLocationStride,
+                values: decodePackedLocations(event.data)
+              });
+            }
+          )
+        : this.eventEmitter.addListener(
+            "locationUpdated",
+            (locations: Location[]) => {
+              listener({
+                count: locations.length,
+                stride: packedLocationStride,
+                values: packLocations(locations)
+              });
+            }
+          );
+    this.nativeInterface.startUpdatingLocation();
+    this.locationListenerCount += 1;
+
+    return () => {
+      emitterSubscription.remove();
+      this.locationListenerCount -= 1;
+
+      if (this.locationListenerCount === 0) {
+        this.nativeInterface.stopUpdatingLocation();
+      }
+    };
+  }
+
   public subscribeToHeadingUpdates(
     listener: (heading: Heading) => void
   ): Subscription {
@@ -65,11 +116,80 @@ export default class Subscriptions {
     };
   }
 
+  public subscribeToLocationUpdatesWithOptions(
+    options: LocationSubscriptionOptions,
+    listener: (locations: Location[]) => void
+  ): Subscription {
+    // Only Android can give each subscription its own parameters
+    if (Platform.OS !== "android") {
+      return this.subscribeToLocationUpdates(listener);
+    }
+
+    this.locationSubscriptionCount += 1;
+    const id = `subscription-${this.locationSubscriptionCount}`;
+    const emitterSubscription = this.eventEmitter.addListener(
+      "locationSubscriptionUpdated",
+      (event: { id: string; locations: Location[] }) => {
+        if (event.id === id) {
+          listener(event.locations);
+        }
+      }
+    );
+    this.nativeInterface.addLocationSubscription(id, options);
+
+    return () => {
+      emitterSubscription.remove();
+      this.nativeInterface.removeLocationSubscription(id);
+    };
+  }
+
+  public subscribeToLocationMetrics(
+    listener: (metrics: LocationMetrics) => void
+  ): Subscription {
+    const emitterSubscription = this.eventEmitter.addListener(
+      "locationMetrics",
+      listener
+    );
+
+    return () => {
+      emitterSubscription.remove();
+    };
+  }
+
+  public subscribeToTripStats(
+    listener: (stats: TripStats) => void
+  ): Subscription {
+    const emitterSubscription = this.eventEmitter.addListener(
+      "tripStatsUpdated",
+      listener
+    );
+
+    return () => {
+      emitterSubscription.remove();
+    };
+  }
+
+  public subscribeToPowerPolicyChanges(
+    listener: (change: PowerPolicyChange) => void
+  ): Subscription {
+    const emitterSubscription = this.eventEmitter.addListener(
+      "powerPolicyChanged",
+      listener
+    );
+
+    return () => {
+      emitterSubscription.remove();
+    };
+  }
+
   public subscribeToSignificantLocationUpdates(
     listener: (locations: Location[]) => void
   ): Subscription {
+    // Android emits significant changes separately from the regular location updates
     const emitterSubscription = this.eventEmitter.addListener(
-      "locationUpdated",
+      Platform.OS === "android"
+        ? "significantLocationUpdated"
+        : "locationUpdated",
       listener
     );
     this.nativeInterface.startMonitoringSignificantLocationChanges();
@@ -84,4 +204,17 @@ export default class Subscriptions {
       }
     };
   }
+
+  public subscribeToGeofenceEvents(
+    listener: (event: GeofenceEvent) => void
+  ): Subscription {
+    const emitterSubscription = this.eventEmitter.addListener(
+      "geofenceEvent",
+      listener
+    );
+
+    return () => {
+      emitterSubscription.remove();
+    };
+  }
 }
@@ -21,10 +21,21 @@ export type LocationActivityType =
   | "otherNavigation"
   | "airborne"; // iOS 12+
 /**
- * The location provider to use for Android.
+ * The location provider to use for Android. Custom providers registered with `RNLocationPackage.addLocationProvider` are selected by their name.
  * @platform android
  */
-export type AndroidProvider = "auto" | "playServices" | "standard";
+export type AndroidProvider =
+  | "auto"
+  | "playServices"
+  | "hybrid"
+  | "standard"
+  | "replay"
+  | (string & {});
+/**
+ * How location updates are delivered on Android while the app is in the background.
+ * @platform android
+ */
+export type BackgroundDeliveryAndroid = "events" | "headlessTask";
 /**
  * The accuracy of the location responses for Android.
  * @platform android
@@ -48,7 +59,6 @@ export type LocationAccuracyIOS =
   | "threeKilometers";
 /**
  * Constants indicating the physical orientation of the device.
- * @platform ios
  * @see [Apple Docs](https://developer.apple.com/documentation/corelocation/cldeviceorientation?language=objc)
  */
 export type HeadingOrientation =
@@ -153,12 +163,12 @@ export interface ConfigureOptions {
   activityType?: LocationActivityType | void;
 
   /**
-   * The provider which is used on Android to get the location. Your app must include the Google Play services dependencies to use the `playServices` location provider. By default it will choose the `playServices` location provider if it detects that the dependencies are installed, otherwise, it will use the `standard` Android version which does not require Google Play Services to be installed. Note that `auto` only checks that the dependencies are installed, not that the user has the Google Play services APK installed and set up correctly.
+   * The provider which is used on Android to get the location. Your app must include the Google Play services dependencies to use the `playServices` location provider. By default it will choose the `playServices` location provider if it detects that the dependencies are installed, otherwise, it will use the `standard` Android version which does not require Google Play Services to be installed. Note that `auto` only checks that the dependencies are installed, not that the user has the Google Play services APK installed and set up correctly. The `hybrid` provider is the `playServices` one, which also listens to raw GPS for the first 30 seconds after starting and emits whichever accurate location arrives first, for devices where the fused provider is slow to get a first fix. After that it keeps only the fused provider, or GPS if the fused provider produced no location at all.
    * @platform android
    */
   androidProvider?: AndroidProvider | void;
   /**
-   * The desired interval for active location updates, in milliseconds.
+   * The desired interval for active location updates, in milliseconds. The `standard` provider defaults to `1000`.
    * @platform android
    * @see [Android Docs](https://developers.google.com/android/reference/com/google/android/gms/location/LocationRequest.html#setInterval(long))
    */
@@ -181,6 +191,126 @@ export interface ConfigureOptions {
    * @see [Android Docs](https://developers.google.com/android/reference/com/google/android/gms/location/LocationRequest.html#setMaxWaitTime(long))
    */
   maxWaitTime?: number | void;
+  /**
+   * A Boolean value indicating whether the system delivers locations through a `PendingIntent` to `RNLocationUpdatesReceiver`, which has to be declared in your `AndroidManifest.xml`. Together with `maxWaitTime` the system can batch locations and deliver them without the app running. Delivered locations are always written to the journal. Defaults to `false`.
+   * @platform android
+   */
+  pendingIntentDelivery?: boolean | void;
+  /**
+   * The maximum number of locations which are buffered natively before they are delivered to your location listeners as a single array. Only used together with `maxBatchLatencyMs`. Defaults to `0` for no limit.
+   * @platform android
+   */
+  maxBatchSize?: number | void;
+  /**
+   * The maximum time in milliseconds that a location can be buffered natively before it is delivered to your location listeners. Buffered locations are also delivered straight away when the app returns to the foreground or location updates are stopped. Defaults to `0`, which delivers every update as soon as it arrives.
+   * @platform android
+   */
+  maxBatchLatencyMs?: number | void;
+  /**
+   * The location fields which should be included in each location delivered to your location listeners. Leaving out the fields you do not use reduces the work done to pass each location over the bridge. Defaults to all fields.
+   * @platform android
+   */
+  locationFields?: Array<keyof Location> | null | void;
+  /**
+   * A Boolean value indicating whether locations are sent from native code as packed numbers instead of objects, which is much cheaper at high update rates. Only listeners added with `subscribeToPackedLocationUpdates` receive locations while this is enabled. Defaults to `false`.
+   * @platform android
+   */
+  packedLocations?: boolean | void;
+  /**
+   * A Boolean value indicating whether received locations should also be written to an on-disk journal, which can be read with `readJournal` even if the JS context was not running when they were received. Defaults to `false`.
+   * @platform android
+   */
+  journalEnabled?: boolean | void;
+  /**
+   * The maximum size in bytes of each journal file. Once the current file is full it replaces the previous one and a new file is started. Defaults to `1048576` (1 MiB).
+   * @platform android
+   */
+  journalMaxSize?: number | void;
+  /**
+   * The maximum age in milliseconds of the oldest location in the current journal file before a new file is started. Defaults to `86400000` (24 hours).
+   * @platform android
+   */
+  journalMaxAge?: number | void;
+  /**
+   * How location updates are delivered while the app is in the background or the React instance has gone away. With `headlessTask`, batches are passed to the task registered with `registerBackgroundLocationTask` instead of being emitted to your location listeners. Defaults to `events`.
+   * @platform android
+   */
+  backgroundDelivery?: BackgroundDeliveryAndroid | void;
+  /**
+   * A Boolean value indicating whether the location request should be adjusted to how the device is moving. When the device has been stationary for a while the update interval is lengthened and high accuracy is dropped, and when it moves fast high accuracy is used. Only supported by the `playServices` provider. Defaults to `false`.
+   * @platform android
+   */
+  adaptiveSampling?: boolean | void;
+  /**
+   * Locations with an accuracy radius larger than this many meters are dropped before they are delivered. Defaults to `0` for no filtering.
+   * @platform android
+   */
+  maxAccuracy?: number | void;
+  /**
+   * Locations which could only be reached from the previous location by moving faster than this many meters per second are dropped as jumps. Defaults to `0` for no filtering.
+   * @platform android
+   */
+  maxSpeed?: number | void;
+  /**
+   * Simplifies the delivered track so that it never deviates from the received locations by more than this many meters. Locations on a straight line are held back until the track turns, so updates can be delayed. Defaults to `0` for no simplification.
+   * @platform android
+   */
+  simplificationTolerance?: number | void;
+  /**
+   * A Boolean value indicating whether the latitude, longitude and speed of each location should be smoothed with a Kalman filter before it is delivered. The accuracy is left as it was received. Defaults to `false`.
+   * @platform android
+   */
+  smoothing?: boolean | void;
+  /**
+   * How much the smoothing expects the movement to change, as the standard deviation of the acceleration in meters per second squared. Higher values follow the received locations more closely, lower values smooth more. Defaults to `1`.
+   * @platform android
+   */
+  smoothingProcessNoise?: number | void;
+  /**
+   * The interval in milliseconds at which the location metrics are emitted to the listeners added with `subscribeToLocationMetrics`. Defaults to `0`, which does not emit them.
+   * @platform android
+   */
+  metricsInterval?: number | void;
+  /**
+   * The interval in milliseconds at which the trip statistics are emitted to the listeners added with `subscribeToTripStats`. Defaults to `0`, which does not emit them.
+   * @platform android
+   */
+  tripStatsInterval?: number | void;
+  /**
+   * The length of the geohash which reverse geocoding results are cached by. Every point in the same geohash cell gets the same result. Defaults to `7`, cells of about 150 meters.
+   * @platform android
+   */
+  geocodeCachePrecision?: number | void;
+  /**
+   * The maximum number of reverse geocoding results which are cached. Defaults to `256`.
+   * @platform android
+   */
+  geocodeCacheSize?: number | void;
+  /**
+   * A Boolean value indicating whether cached reverse geocoding results are also written to disk, so they are kept when the app restarts. Defaults to `false`.
+   * @platform android
+   */
+  geocodeCachePersistent?: boolean | void;
+  /**
+   * The steps to take the location updates down to as the battery runs low. The first step whose conditions all hold replaces the configured interval, distance filter and accuracy, and each change of step is emitted to the listeners added with `subscribeToPowerPolicyChanges`. Pass `null` to remove the policy.
+   * @platform android
+   */
+  powerPolicy?: PowerPolicyStep[] | null | void;
+  /**
+   * The GPX, CSV or location journal file replayed by the `replay` provider. Relative paths are resolved against the app's files directory.
+   * @platform android
+   */
+  replayFile?: string | void;
+  /**
+   * How many times faster than recorded the `replay` provider replays its file. Defaults to `1`.
+   * @platform android
+   */
+  replaySpeed?: number | void;
+  /**
+   * Whether the `replay` provider starts again from the beginning of its file once it reaches the end. Defaults to `false`.
+   * @platform android
+   */
+  replayLoop?: boolean | void;
 
   /**
    * A Boolean value indicating whether the app should receive location updates when suspended. Requires permissions to always access the users location. Defaults to `false`.
@@ -200,15 +330,18 @@ export interface ConfigureOptions {
   } | void;
   /**
    * The minimum angle in degrees that the device heading needs to change before the heading update callback in your app is called. Defaults to `0` for no filtering.
-   * @platform ios
    */
   headingFilter?: number | void;
   /**
    * The device orientation to use when computing heading values. Defaults to `portrait`.
-   * @platform ios
    * @see [Apple Docs](https://developer.apple.com/documentation/corelocation/cllocationmanager/1620556-headingorientation)
    */
   headingOrientation?: HeadingOrientation | void;
+  /**
+   * Whether significant location updates with Play Services also make a low power request of their own, instead of only receiving the locations requested by other apps. Defaults to `false`.
+   * @platform android
+   */
+  significantChangesLowPower?: boolean | void;
   /**
    * A Boolean value indicating whether the location manager object may pause location updates. Defaults to `true`.
    * @platform ios
@@ -228,6 +361,16 @@ export interface GetLatestLocationOptions {
    * The amount of time in milliseconds which the `getLatestLocation` method should wait before giving up and returning `null`. To turn off the timeout behaviour, give this option a `null` value. If not specified it will default to 10000ms (10 seconds).
    */
   timeout?: number | null;
+  /**
+   * The maximum age in milliseconds of a previously received location which can be returned. Older locations are ignored and a fresh location is requested instead. Defaults to no limit.
+   * @platform android
+   */
+  maxAge?: number | void;
+  /**
+   * The required accuracy in meters of a previously received location which can be returned. Less accurate locations are ignored and a fresh location is requested instead. Defaults to no limit.
+   * @platform android
+   */
+  requiredAccuracy?: number | void;
 }
 
 export interface RequestPermissionOptions {
@@ -245,4 +388,282 @@ export interface RequestPermissionOptions {
 
 export type Subscription = () => void;
 
+export interface BackgroundLocationTaskData {
+  /**
+   * The batch of locations which was received while the app was in the background.
+   */
+  locations: Location[];
+}
+
+export type TrackExportField = "accuracy" | "altitude" | "speed" | "course";
+
+export interface TrackExportOptions {
+  /**
+   * The optional values to include for each location, besides the timestamp, latitude and longitude. Defaults to `["accuracy"]`.
+   */
+  fields?: TrackExportField[] | void;
+  /**
+   * A Boolean value indicating whether the file should be gzipped. Defaults to `false`.
+   */
+  gzip?: boolean | void;
+  /**
+   * The path of the file to write. Defaults to a file in the app's cache directory.
+   */
+  path?: string | void;
+}
+
+export interface LocationSubscriptionOptions {
+  /**
+   * The interval in milliseconds at which this subscription wants to receive locations.
+   */
+  interval?: number | void;
+  /**
+   * The minimum distance in meters that the device location needs to change before this subscription receives a new location.
+   */
+  distanceFilter?: number | void;
+  /**
+   * The accuracy this subscription needs.
+   */
+  desiredAccuracy?: {
+    android?: LocationPriorityAndroid | void;
+  } | void;
+}
+
+export interface PowerPolicyStep {
+  /**
+   * The step only applies while the device is charging, or only while it is not.
+   */
+  charging?: boolean | void;
+  /**
+   * The step only applies while the battery level is at least this percentage.
+   */
+  minBatteryLevel?: number | void;
+  /**
+   * The step only applies while battery saver is on, or only while it is off.
+   */
+  powerSaveMode?: boolean | void;
+  /**
+   * The step only applies while the device is in Doze, or only while it is not.
+   */
+  deviceIdle?: boolean | void;
+  /**
+   * The interval in milliseconds to request locations at.
+   */
+  interval?: number | void;
+  /**
+   * The fastest interval in milliseconds to receive locations at.
+   */
+  fastestInterval?: number | void;
+  /**
+   * The minimum distance in meters between locations.
+   */
+  distanceFilter?: number | void;
+  /**
+   * The accuracy to request locations with.
+   */
+  desiredAccuracy?: {
+    android?: LocationPriorityAndroid | void;
+  } | void;
+}
+
+export interface PowerPolicyChange {
+  /**
+   * The index in `powerPolicy` of the step which now applies, or `-1` when none does and the configured options apply again.
+   */
+  step: number;
+  /**
+   * What caused the change, `configure` or the Android broadcast action.
+   */
+  reason: string;
+  /**
+   * The battery level as a percentage.
+   */
+  batteryLevel: number;
+  charging: boolean;
+  powerSaveMode: boolean;
+  deviceIdle: boolean;
+  timestamp: number;
+}
+
+export interface LatencyHistogram {
+  count: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+}
+
+export interface LocationMetrics {
+  /**
+   * The number of locations received from the location provider.
+   */
+  fixesReceived: number;
+  /**
+   * The number of received locations which were removed by the `maxAccuracy` and `maxSpeed` filters, or as duplicates.
+   */
+  fixesFiltered: number;
+  /**
+   * The number of locations emitted to JS or to the background task.
+   */
+  fixesEmitted: number;
+  /**
+   * The number of locations dropped because there was no React instance to emit them to.
+   */
+  fixesDropped: number;
+  /**
+   * The number of times a location request was registered with the system.
+   */
+  registrations: number;
+  /**
+   * Milliseconds from starting location updates to the first location being emitted.
+   */
+  timeToFirstFix: LatencyHistogram;
+  /**
+   * Milliseconds from starting location updates to the first location from the fused provider, with the `hybrid` provider.
+   */
+  fusedTimeToFirstFix: LatencyHistogram;
+  /**
+   * Milliseconds from starting location updates to the first location from GPS, with the `hybrid` provider.
+   */
+  gnssTimeToFirstFix: LatencyHistogram;
+  /**
+   * Age in milliseconds of the locations when they are received from the location provider.
+   */
+  fixAge: LatencyHistogram;
+  /**
+   * Microseconds spent filtering, smoothing and dispatching each location or batch of locations received from the location provider.
+   */
+  processingTime: LatencyHistogram;
+  /**
+   * Microseconds spent converting locations for JS.
+   */
+  conversionTime: LatencyHistogram;
+  /**
+   * Microseconds spent emitting events to JS.
+   */
+  emitTime: LatencyHistogram;
+  /**
+   * Microseconds spent applying the options given to `configure`.
+   */
+  configureTime: LatencyHistogram;
+}
+
+/**
+ * A batch of locations packed into a single array of numbers. Each location takes `stride` numbers, in the order latitude, longitude, accuracy, altitude, altitudeAccuracy, course, courseAccuracy, speed, speedAccuracy, timestamp and fromMockProvider (`1` or `0`).
+ */
+export interface PackedLocations {
+  /**
+   * The number of locations in the batch.
+   */
+  count: number;
+  /**
+   * The number of values for each location.
+   */
+  stride: number;
+  /**
+   * The values of every location, one after the other.
+   */
+  values: Float64Array;
+}
+
+export interface ReverseGeocodeOptions {
+  /**
+   * The geohash length to cache this lookup by, instead of `geocodeCachePrecision`.
+   */
+  precision?: number | void;
+  /**
+   * The locale of the result, such as `"en-GB"`. Defaults to the device locale.
+   */
+  locale?: string | void;
+}
+
+export interface Place {
+  formattedAddress: string | null;
+  name: string | null;
+  street: string | null;
+  streetNumber: string | null;
+  postalCode: string | null;
+  subLocality: string | null;
+  locality: string | null;
+  subAdminArea: string | null;
+  adminArea: string | null;
+  country: string | null;
+  countryCode: string | null;
+}
+
+export interface TripStats {
+  /**
+   * The distance travelled in meters, without the movement which is within the accuracy of the locations.
+   */
+  distance: number;
+  /**
+   * The milliseconds spent moving faster than 0.5 meters per second.
+   */
+  movingTime: number;
+  /**
+   * The milliseconds from the first to the last location of the trip.
+   */
+  elapsedTime: number;
+  /**
+   * The average speed while moving, in meters per second.
+   */
+  averageSpeed: number;
+  /**
+   * The highest speed in meters per second.
+   */
+  maxSpeed: number;
+  /**
+   * The total climb in meters.
+   */
+  elevationGain: number;
+  /**
+   * The total descent in meters.
+   */
+  elevationLoss: number;
+  /**
+   * The timestamp of the first location of the trip.
+   */
+  startTime: number;
+  /**
+   * The number of locations which were added to the trip.
+   */
+  fixes: number;
+}
+
+export type GeofenceTransition = "enter" | "exit" | "dwell";
+
+export interface Geofence {
+  /**
+   * The identifier of the geofence. Adding a geofence with the same identifier as an existing one replaces it.
+   */
+  id: string;
+  latitude: number;
+  longitude: number;
+  /**
+   * The radius of the geofence in meters.
+   */
+  radius: number;
+  /**
+   * The transitions which should be reported for this geofence. Defaults to `["enter", "exit"]`.
+   */
+  transitions?: GeofenceTransition[] | void;
+  /**
+   * The time in milliseconds the device has to stay inside the geofence before a `dwell` transition is reported. Defaults to `0`.
+   */
+  loiteringDelay?: number | void;
+}
+
+export interface GeofenceEvent {
+  /**
+   * The identifier of the geofence which was transitioned.
+   */
+  id: string;
+  transition: GeofenceTransition;
+  /**
+   * The location which triggered the transition, if it is known.
+   */
+  location?: Location | void;
+}
+
 export type RNLocationNativeInterface = any;
@@ -1,4 +1,5 @@
 /* eslint-disable valid-jsdoc */
+import { Location } from "./types";
 
 /**
  * Wraps a promise with a timeout which resolves to `null` after a given delay.
@@ -19,3 +20,72 @@ export const promiseTimeoutResolveNull = <T>(
   // Returns a race between our timeout and the passed in promise
   return Promise.race([promise, timeout]);
 };
+
+/**
+ * The number of values for each location in `PackedLocations`.
+ * @ignore
+ */
+export const packedLocationStride = 11;
+
+/**
+ * Maps each base64 character code to its 6-bit value, so decoding needs no search.
+ * @ignore
+ */
+const base64Lookup = (() => {
+  const alphabet =
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+  const lookup = new Uint8Array(128);
+  for (let i = 0; i < alphabet.length; i++) {
+    lookup[alphabet.charCodeAt(i)] = i;
+  }
+  return lookup;
+})();
+
+/**
+ * Decodes the base64 packed locations sent by the native code.
+ * @ignore
+ */
+export const decodePackedLocations = (data: string): Float64Array => {
+  let padding = 0;
+  if (data.charAt(data.length - 1) === "=") padding++;
+  if (data.charAt(data.length - 2) === "=") padding++;
+  const bytes = new Uint8Array((data.length / 4) * 3 - padding);
+
+  let byteIndex = 0;
+  for (let i = 0; i < data.length; i += 4) {
+    const chunk =
+      (base64Lookup[data.charCodeAt(i) & 127] << 18) |
+      (base64Lookup[data.charCodeAt(i + 1) & 127] << 12) |
+      (base64Lookup[data.charCodeAt(i + 2) & 127] << 6) |
+      base64Lookup[data.charCodeAt(i + 3) & 127];
+    bytes[byteIndex++] = (chunk >> 16) & 255;
+    if (byteIndex < bytes.length) bytes[byteIndex++] = (chunk >> 8) & 255;
+    if (byteIndex < bytes.length) bytes[byteIndex++] = chunk & 255;
+  }
+
+  // Every platform React Native runs on is little-endian, like the packed data
+  return new Float64Array(bytes.buffer);
+};
+
+/**
+ * Packs locations in JS, for the platforms which only send them as objects.
+ * @ignore
+ */
+export const packLocations = (locations: Location[]): Float64Array => {
+  const values = new Float64Array(locations.length * packedLocationStride);
+  locations.forEach((location, index) => {
+    const offset = index * packedLocationStride;
+    values[offset] = location.latitude;
+    values[offset + 1] = location.longitude;
+    values[offset + 2] = location.accuracy;
+    values[offset + 3] = location.altitude;
+    values[offset + 4] = location.altitudeAccuracy;
+    values[offset + 5] = location.course;
+    values[offset + 6] = location.courseAccuracy || 0;
+    values[offset + 7] = location.speed;
+    values[offset + 8] = location.speedAccuracy || 0;
+    values[offset + 9] = location.timestamp;
+    values[offset + 10] = location.fromMockProvider ? 1 : 0;
+  });
+  return values;
+};